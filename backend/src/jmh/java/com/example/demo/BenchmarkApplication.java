@@ -0,0 +1,65 @@
+package com.example.demo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application without a web server against a {@link BenchmarkDatabase}.
+ */
+public final class BenchmarkApplication implements AutoCloseable {
+	private final BenchmarkDatabase database;
+	private final ConfigurableApplicationContext context;
+
+	private BenchmarkApplication(BenchmarkDatabase database, ConfigurableApplicationContext context) {
+		this.database = database;
+		this.context = context;
+	}
+
+	/**
+	 * @param properties {@code name=value} pairs, overriding the benchmark defaults
+	 */
+	public static BenchmarkApplication start(String... properties) {
+		BenchmarkDatabase database = BenchmarkDatabase.start();
+		Map<String, String> args = new LinkedHashMap<>();
+		args.put("spring.main.web-application-type", "none");
+		args.put("spring.main.banner-mode", "off");
+		args.put("logging.level.root", "warn");
+		args.put("spring.datasource.url", database.getUrl());
+		args.put("spring.datasource.username", database.getUsername());
+		args.put("spring.datasource.password", database.getPassword());
+		args.put("spring.r2dbc.url", database.getUrl().replaceFirst("^jdbc:", "r2dbc:"));
+		args.put("spring.r2dbc.username", database.getUsername());
+		args.put("spring.r2dbc.password", database.getPassword());
+		for (String property : properties) {
+			int separator = property.indexOf('=');
+			args.put(property.substring(0, separator), property.substring(separator + 1));
+		}
+		ConfigurableApplicationContext context = SpringApplication.run(
+				DemoApplication.class,
+				args.entrySet().stream()
+						.map(arg -> "--" + arg.getKey() + "=" + arg.getValue())
+						.toArray(String[]::new)
+		);
+		return new BenchmarkApplication(database, context);
+	}
+
+	public int getLocalPort() {
+		return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+	}
+
+	public <T> T getBean(String name, Class<T> type) {
+		return context.getBean(name, type);
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	@Override
+	public void close() {
+		context.close();
+		database.close();
+	}
+}
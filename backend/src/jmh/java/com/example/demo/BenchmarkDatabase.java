@@ -0,0 +1,63 @@
+package com.example.demo;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * PostgreSQL for benchmarks: a Testcontainers instance, or an existing database when
+ * {@code -Dbenchmark.datasource.url} (plus {@code .username} and {@code .password}) is set.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+	private final PostgreSQLContainer<?> container;
+	private final String url;
+	private final String username;
+	private final String password;
+
+	private BenchmarkDatabase(PostgreSQLContainer<?> container, String url, String username, String password) {
+		this.container = container;
+		this.url = url;
+		this.username = username;
+		this.password = password;
+	}
+
+	public static BenchmarkDatabase start() {
+		String url = System.getProperty("benchmark.datasource.url");
+		if (url != null) {
+			return new BenchmarkDatabase(
+					null,
+					url,
+					System.getProperty("benchmark.datasource.username", "amigoscode"),
+					System.getProperty("benchmark.datasource.password", "password")
+			);
+		}
+		PostgreSQLContainer<?> container = new PostgreSQLContainer<>("postgres:latest")
+				.withDatabaseName("amigoscode-benchmark")
+				.withUsername("amigoscode")
+				.withPassword("password");
+		container.start();
+		return new BenchmarkDatabase(
+				container,
+				container.getJdbcUrl(),
+				container.getUsername(),
+				container.getPassword()
+		);
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	@Override
+	public void close() {
+		if (container != null) {
+			container.stop();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.demo.BenchmarkApplication;
+
+/**
+ * Closed-loop HTTP load comparing the servlet stack on Tomcat's platform thread pool, the servlet
+ * stack on virtual threads and the reactive stack on Netty. Every JMH thread is one client; sweep concurrency with {@code -t}, e.g.
+ * {@code -t 50}, {@code -t 400}, {@code -t 1000}, and compare throughput per mode. The cache is
+ * off so every request blocks on JDBC; raise {@code poolSize} to keep the pool from being the cap.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(400)
+@State(Scope.Benchmark)
+public class CustomerControllerLoadBenchmark {
+
+	@Param({"platform", "virtual", "reactive"})
+	public String mode;
+
+	@Param({"1000"})
+	public int customers;
+
+	@Param({"50"})
+	public int poolSize;
+
+	private BenchmarkApplication application;
+	private HttpClient httpClient;
+	private String baseUrl;
+	private long[] ids;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		application = BenchmarkApplication.start(
+				"spring.main.web-application-type=" + (mode.equals("reactive") ? "reactive" : "servlet"),
+				"server.port=0",
+				"spring.threads.virtual.enabled=" + mode.equals("virtual"),
+				"spring.r2dbc.pool.max-size=" + poolSize,
+				"server.tomcat.threads.max=200",
+				"server.tomcat.max-connections=10000",
+				"spring.datasource.hikari.maximum-pool-size=" + poolSize,
+				"customer.cache.enabled=false",
+				"customer.email-filter.enabled=false"
+		);
+		CustomerDao customerDao = application.getBean("jdbc", CustomerDao.class);
+		String run = UUID.randomUUID().toString();
+		List<Customer> seed = new ArrayList<>(customers);
+		for (int i = 0; i < customers; i++) {
+			seed.add(new Customer("customer " + i, "load-" + i + "-" + run + "@amigoscode.com", 20 + i % 60));
+		}
+		ids = customerDao.insertCustomers(seed).stream().mapToLong(Customer::getId).toArray();
+		baseUrl = "http://localhost:" + application.getLocalPort() + "/api/v1/customers/";
+		httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.build();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.close();
+	}
+
+	@Benchmark
+	public int getCustomer() throws IOException, InterruptedException {
+		long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).GET().build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+
+	@Benchmark
+	public int getCustomersPage() throws IOException, InterruptedException {
+		long after = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?limit=50&after=" + after)).GET().build();
+		return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
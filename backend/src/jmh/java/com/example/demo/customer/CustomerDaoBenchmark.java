@@ -0,0 +1,126 @@
+package com.example.demo.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.demo.BenchmarkApplication;
+import com.github.javafaker.Faker;
+
+/**
+ * Per-operation latency of each {@link CustomerDao} backend, called directly without the cache
+ * and email filter decorators.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerDaoBenchmark {
+
+	@Param({"jdbc", "jpa", "list", "tiered"})
+	public String dao;
+
+	@Param({"10000"})
+	public int customers;
+
+	private BenchmarkApplication application;
+	private CustomerDao customerDao;
+	private long[] ids;
+	private String[] emails;
+	private String[] names;
+	private final AtomicInteger ages = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		application = BenchmarkApplication.start(
+				"customer.dao.backend=" + dao,
+				"customer.email-filter.enabled=false"
+		);
+		customerDao = application.getBean(CustomerDataAccessConfig.BACKEND, CustomerDao.class);
+
+		String run = UUID.randomUUID().toString();
+		List<Customer> seed = new ArrayList<>(customers);
+		Faker faker = new Faker(new Random(42));
+		for (int i = 0; i < customers; i++) {
+			seed.add(new Customer(faker.name().fullName(), "customer-" + i + "-" + run + "@amigoscode.com", 20 + i % 60));
+		}
+		List<Customer> inserted = customerDao.insertCustomers(seed);
+		ids = inserted.stream().mapToLong(Customer::getId).toArray();
+		emails = inserted.stream().map(Customer::getEmail).toArray(String[]::new);
+		names = inserted.stream().map(Customer::getName).toArray(String[]::new);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.close();
+	}
+
+	@Benchmark
+	public Optional<Customer> selectCustomerById() {
+		return customerDao.selectCustomerById(randomId());
+	}
+
+	@Benchmark
+	public List<Customer> selectCustomers() {
+		return customerDao.selectCustomers(randomId(), 50);
+	}
+
+	@Benchmark
+	public List<CustomerMatch> fuzzySearchCustomers() {
+		// a name with two letters swapped, like one typed by a support agent
+		char[] name = names[ThreadLocalRandom.current().nextInt(names.length)].toLowerCase().toCharArray();
+		char swapped = name[1];
+		name[1] = name[2];
+		name[2] = swapped;
+		return customerDao.fuzzySearchCustomers(new String(name), 20);
+	}
+
+	@Benchmark
+	public boolean existsPersonWithEmail() {
+		return customerDao.existsPersonWithEmail(emails[ThreadLocalRandom.current().nextInt(emails.length)]);
+	}
+
+	@Benchmark
+	public boolean existsPersonWithId() {
+		return customerDao.existsPersonWithId(randomId());
+	}
+
+	@Benchmark
+	public Optional<Customer> updateCustomer() {
+		Customer update = new Customer();
+		update.setId(randomId());
+		update.setAge(18 + ages.incrementAndGet() % 80);
+		return customerDao.updateCustomer(update);
+	}
+
+	@Benchmark
+	public void insertThenDeleteCustomer() {
+		long id = customerDao.insertCustomer(
+				new Customer("new", UUID.randomUUID() + "@amigoscode.com", 30)
+		).orElseThrow();
+		customerDao.deleteCustomerById(id);
+	}
+
+	private long randomId() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+/**
+ * Request and response bodies through the same {@link MappingJackson2HttpMessageConverter} the MVC
+ * stack uses, with the Spring Boot defaults ({@code reflective}) and with {@link CustomerJsonModule}
+ * registered ({@code module}). Add {@code -prof gc} for bytes allocated per request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerJsonBenchmark {
+
+	@Param({"reflective", "module"})
+	public String serializers;
+
+	@Param({"50"})
+	public int pageSize;
+
+	private MappingJackson2HttpMessageConverter converter;
+	private Customer customer;
+	private CustomerPage page;
+	private byte[] registration;
+	private byte[] update;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		if (serializers.equals("module")) {
+			builder.modulesToInstall(new CustomerJsonModule());
+		}
+		converter = new MappingJackson2HttpMessageConverter(builder.build());
+		customer = new Customer(42L, "Alex Jamila", "alex.jamila@amigoscode.com", 31, 2L);
+		List<Customer> customers = new ArrayList<>(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			customers.add(new Customer((long) i, "customer " + i, "customer-" + i + "@amigoscode.com", 20 + i % 60));
+		}
+		page = new CustomerPage(customers, (long) pageSize);
+		registration = """
+				{"name": "Alex Jamila", "email": "alex.jamila@amigoscode.com", "age": 31}
+				""".getBytes(StandardCharsets.UTF_8);
+		update = """
+				{"age": 32}
+				""".getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public byte[] writeCustomer() throws IOException {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write(customer, MediaType.APPLICATION_JSON, message);
+		return message.getBodyAsBytes();
+	}
+
+	@Benchmark
+	public byte[] writePage() throws IOException {
+		MockHttpOutputMessage message = new MockHttpOutputMessage();
+		converter.write(page, MediaType.APPLICATION_JSON, message);
+		return message.getBodyAsBytes();
+	}
+
+	@Benchmark
+	public Object readRegistration() throws IOException {
+		return converter.read(CustomerRegistrationRequest.class, json(registration));
+	}
+
+	@Benchmark
+	public Object readUpdate() throws IOException {
+		return converter.read(CustomerUpdateRequest.class, json(update));
+	}
+
+	private static MockHttpInputMessage json(byte[] body) {
+		MockHttpInputMessage message = new MockHttpInputMessage(body);
+		message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		return message;
+	}
+}
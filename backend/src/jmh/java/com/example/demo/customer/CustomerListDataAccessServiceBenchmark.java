@@ -0,0 +1,137 @@
+package com.example.demo.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the indexed in-memory store against the ArrayList scan it replaced.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CustomerListDataAccessServiceBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerListDataAccessServiceBenchmark {
+
+	@Param({"indexed", "legacy"})
+	public String implementation;
+
+	@Param({"1000000"})
+	public int customers;
+
+	private Store store;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		store = implementation.equals("indexed") ? new IndexedStore() : new LegacyStore();
+		for (int i = 0; i < customers; i++) {
+			store.insert(new Customer("customer " + i, "customer-" + i + "@amigoscode.com", 20 + i % 60));
+		}
+	}
+
+	@Benchmark
+	public Optional<Customer> selectCustomerById() {
+		return store.selectById(ThreadLocalRandom.current().nextLong(1, customers + 1));
+	}
+
+	@Benchmark
+	public boolean existsPersonWithEmail() {
+		return store.existsWithEmail("customer-" + ThreadLocalRandom.current().nextInt(customers) + "@amigoscode.com");
+	}
+
+	@Benchmark
+	public void insertThenDeleteCustomer() {
+		long id = store.insert(new Customer("new", "new-" + System.nanoTime() + "@amigoscode.com", 30));
+		store.deleteById(id);
+	}
+
+	interface Store {
+		long insert(Customer customer);
+
+		Optional<Customer> selectById(long id);
+
+		boolean existsWithEmail(String email);
+
+		void deleteById(long id);
+	}
+
+	static final class IndexedStore implements Store {
+		private final CustomerListDataAccessService dao = new CustomerListDataAccessService();
+
+		IndexedStore() {
+			dao.selectAllCustomers().forEach(c -> dao.deleteCustomerById(c.getId()));
+		}
+
+		@Override
+		public long insert(Customer customer) {
+			return dao.insertCustomer(customer).orElseThrow();
+		}
+
+		@Override
+		public Optional<Customer> selectById(long id) {
+			return dao.selectCustomerById(id);
+		}
+
+		@Override
+		public boolean existsWithEmail(String email) {
+			return dao.existsPersonWithEmail(email);
+		}
+
+		@Override
+		public void deleteById(long id) {
+			dao.deleteCustomerById(id);
+		}
+	}
+
+	/**
+	 * The ArrayList implementation the list DAO used before it was indexed.
+	 */
+	static final class LegacyStore implements Store {
+		private final List<Customer> customers = new ArrayList<>();
+
+		@Override
+		public long insert(Customer customer) {
+			customer.setId(customers.size() + 1L);
+			customers.add(customer);
+			return customer.getId();
+		}
+
+		@Override
+		public Optional<Customer> selectById(long id) {
+			return customers.stream()
+					.filter(c -> c.getId().equals(id))
+					.findFirst();
+		}
+
+		@Override
+		public boolean existsWithEmail(String email) {
+			return customers.stream()
+					.anyMatch(c -> c.getEmail().equals(email));
+		}
+
+		@Override
+		public void deleteById(long id) {
+			customers.stream()
+					.filter(c -> c.getId().equals(id))
+					.findFirst()
+					.ifPresent(customers::remove);
+		}
+	}
+}
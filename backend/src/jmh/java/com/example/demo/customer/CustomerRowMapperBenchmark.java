@@ -0,0 +1,132 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+import com.example.demo.BenchmarkDatabase;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Maps a fully buffered PostgreSQL result set, so the score is driver decoding plus the mapper
+ * and no network. Add {@code -prof gc} for allocation per row; divide {@code gc.alloc.rate.norm}
+ * by {@code rows}. {@code mapRowsByName} is the mapper before it switched to column positions, and
+ * the {@code write} benchmarks add the export's JSON encoding into a discarding stream.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerRowMapperBenchmark {
+
+	@Param({"1000"})
+	public int rows;
+
+	private BenchmarkDatabase database;
+	private Connection connection;
+	private ResultSet resultSet;
+	private final CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+	private final RowMapper<Customer> byNameRowMapper = (rs, rowNum) -> new Customer(
+			rs.getLong("id"),
+			rs.getString("name"),
+			rs.getString("email"),
+			rs.getInt("age"),
+			rs.getLong("version")
+	);
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ObjectWriter customerWriter = objectMapper.writerFor(Customer.class)
+			.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	private JsonGenerator generator;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException, IOException {
+		database = BenchmarkDatabase.start();
+		connection = DriverManager.getConnection(database.getUrl(), database.getUsername(), database.getPassword());
+		PreparedStatement statement = connection.prepareStatement("""
+				SELECT i::bigint AS id, 'customer ' || i AS name, 'customer-' || i || '@amigoscode.com' AS email, 20 + i % 60 AS age,
+					0::bigint AS version
+				FROM generate_series(1, ?) AS i
+				""", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		statement.setInt(1, rows);
+		resultSet = statement.executeQuery();
+		generator = objectMapper.createGenerator(OutputStream.nullOutputStream());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException, IOException {
+		generator.close();
+		connection.close();
+		database.close();
+	}
+
+	@Benchmark
+	public void mapRows(Blackhole blackhole) throws SQLException {
+		resultSet.beforeFirst();
+		int rowNum = 0;
+		while (resultSet.next()) {
+			blackhole.consume(customerRowMapper.mapRow(resultSet, rowNum++));
+		}
+	}
+
+	@Benchmark
+	public void mapRowsByName(Blackhole blackhole) throws SQLException {
+		resultSet.beforeFirst();
+		int rowNum = 0;
+		while (resultSet.next()) {
+			blackhole.consume(byNameRowMapper.mapRow(resultSet, rowNum++));
+		}
+	}
+
+	@Benchmark
+	public void mapViews(Blackhole blackhole) throws SQLException {
+		resultSet.beforeFirst();
+		while (resultSet.next()) {
+			blackhole.consume(customerRowMapper.mapView(resultSet));
+		}
+	}
+
+	@Benchmark
+	public void writeCustomersByName() throws SQLException, IOException {
+		resultSet.beforeFirst();
+		int rowNum = 0;
+		while (resultSet.next()) {
+			customerWriter.writeValue(generator, byNameRowMapper.mapRow(resultSet, rowNum++));
+			generator.writeRaw('\n');
+		}
+		generator.flush();
+	}
+
+	@Benchmark
+	public void writeViews() throws SQLException, IOException {
+		resultSet.beforeFirst();
+		while (resultSet.next()) {
+			CustomerViewWriter.write(generator, customerRowMapper.mapView(resultSet));
+			generator.writeRaw('\n');
+		}
+		generator.flush();
+	}
+}
@@ -0,0 +1,187 @@
+package com.example.demo.customer;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.demo.BenchmarkApplication;
+import com.example.demo.exception.DuplicateResourceException;
+import com.example.demo.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The service write paths through the fully decorated {@link CustomerDao}, as the controller calls them.
+ * {@code daoCalls / operations} is the number of calls per operation that reached the backend below the
+ * cache, i.e. the round trips; {@code checkThenDeleteCustomerById} and {@code readCheckThenUpdateCustomer}
+ * replay the old exists-then-delete and read-check-then-update paths for comparison. Statistics are on, as
+ * they are by default, so their decorator's bookkeeping is part of every write.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerServiceBenchmark {
+
+	private BenchmarkApplication application;
+	private CustomerService customerService;
+	private CustomerDao customerDao;
+	private Collection<Timer> daoTimers;
+	private long customerId;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class RoundTrips {
+		public long daoCalls;
+		public long operations;
+
+		void record(long calls) {
+			daoCalls += calls;
+			operations++;
+		}
+	}
+
+	/**
+	 * The next change a PUT applies, either the age alone or every field.
+	 */
+	@State(Scope.Thread)
+	public static class Change {
+		@Param({"age", "all"})
+		public String fields;
+		private int sequence;
+
+		CustomerUpdateRequest next() {
+			sequence++;
+			int age = 18 + sequence % 80;
+			if (fields.equals("age")) {
+				return new CustomerUpdateRequest(null, null, age);
+			}
+			return new CustomerUpdateRequest("Alex " + sequence, UUID.randomUUID() + "@amigoscode.com", age);
+		}
+	}
+
+	/**
+	 * A fresh customer for each delete; the insert is not part of the measured time.
+	 */
+	@State(Scope.Thread)
+	public static class Victim {
+		long id;
+
+		@Setup(Level.Invocation)
+		public void insert(CustomerServiceBenchmark benchmark) {
+			id = benchmark.customerService.addCustomer(new CustomerRegistrationRequest(
+					"Victim", UUID.randomUUID() + "@amigoscode.com", 30
+			));
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		application = BenchmarkApplication.start();
+		customerService = application.getBean(CustomerService.class);
+		customerDao = application.getBean(CustomerDao.class);
+		// MeteredCustomerDao registers its timers up front, so the set does not grow
+		daoTimers = application.getBean(MeterRegistry.class).find("customer.dao").timers();
+		customerId = customerService.addCustomer(new CustomerRegistrationRequest(
+				"Alex", UUID.randomUUID() + "@amigoscode.com", 20
+		));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.close();
+	}
+
+	@Benchmark
+	public Long addCustomer() {
+		return customerService.addCustomer(new CustomerRegistrationRequest(
+				"Alex", UUID.randomUUID() + "@amigoscode.com", 20
+		));
+	}
+
+	@Benchmark
+	public Customer updateCustomer(Change change, RoundTrips roundTrips) {
+		long before = daoCalls();
+		Customer updated = customerService.updateCustomer(customerId, change.next());
+		roundTrips.record(daoCalls() - before);
+		return updated;
+	}
+
+	@Benchmark
+	public Customer readCheckThenUpdateCustomer(Change change, RoundTrips roundTrips) {
+		long before = daoCalls();
+		CustomerUpdateRequest request = change.next();
+		Customer customer = customerDao.selectCustomerById(customerId).orElseThrow(
+				() -> new ResourceNotFoundException("customer with id [%s] not found".formatted(customerId)));
+		if (request.email() != null && !request.email().equals(customer.getEmail())
+				&& customerDao.existsPersonWithEmail(request.email())) {
+			throw new DuplicateResourceException("email already taken");
+		}
+		// the old JDBC DAO wrote each changed column with an UPDATE of its own
+		Customer updated = customer;
+		if (request.name() != null && !request.name().equals(customer.getName())) {
+			updated = customerDao.updateCustomer(new Customer(customerId, request.name(), null, null)).orElseThrow();
+		}
+		if (request.email() != null && !request.email().equals(customer.getEmail())) {
+			updated = customerDao.updateCustomer(new Customer(customerId, null, request.email(), null)).orElseThrow();
+		}
+		if (request.age() != null && !request.age().equals(customer.getAge())) {
+			updated = customerDao.updateCustomer(new Customer(customerId, null, null, request.age())).orElseThrow();
+		}
+		roundTrips.record(daoCalls() - before);
+		return updated;
+	}
+
+	@Benchmark
+	public void deleteCustomerById(Victim victim, RoundTrips roundTrips) {
+		long before = daoCalls();
+		customerService.deleteCustomerById(victim.id);
+		roundTrips.record(daoCalls() - before);
+	}
+
+	@Benchmark
+	public void checkThenDeleteCustomerById(Victim victim, RoundTrips roundTrips) {
+		long before = daoCalls();
+		if (!customerDao.existsPersonWithId(victim.id)) {
+			throw new ResourceNotFoundException("customer with id [%s] not found".formatted(victim.id));
+		}
+		customerDao.deleteCustomerById(victim.id);
+		roundTrips.record(daoCalls() - before);
+	}
+
+	@Benchmark
+	public boolean deleteMissingCustomer(RoundTrips roundTrips) {
+		long before = daoCalls();
+		try {
+			customerService.deleteCustomerById(-1L);
+			return false;
+		} catch (ResourceNotFoundException e) {
+			return true;
+		} finally {
+			roundTrips.record(daoCalls() - before);
+		}
+	}
+
+	private long daoCalls() {
+		long calls = 0;
+		for (Timer timer : daoTimers) {
+			calls += timer.count();
+		}
+		return calls;
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Encodes and decodes customer bodies as JSON, Smile and CBOR with the mapper setup the converters
+ * use, including {@link CustomerJsonModule}. {@code payloadBytes / operations} is the encoded size;
+ * add {@code -prof gc} for allocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomerWireFormatBenchmark {
+
+	@Param({"json", "smile", "cbor"})
+	public String format;
+
+	@Param({"1000"})
+	public int pageSize;
+
+	private ObjectMapper mapper;
+	private CustomerPage page;
+	private CustomerRegistrationRequest registration;
+	private byte[] encodedPage;
+	private byte[] encodedRegistration;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Payload {
+		public long payloadBytes;
+		public long operations;
+
+		byte[] record(byte[] body) {
+			payloadBytes += body.length;
+			operations++;
+			return body;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+				.modulesToInstall(new CustomerJsonModule());
+		switch (format) {
+			case "smile" -> builder.factory(new SmileFactory());
+			case "cbor" -> builder.factory(new CBORFactory());
+			default -> {
+			}
+		}
+		mapper = builder.build();
+		List<Customer> customers = new ArrayList<>(pageSize);
+		for (int i = 0; i < pageSize; i++) {
+			customers.add(new Customer(
+					100_000L + i, "customer " + i, "customer-" + i + "@amigoscode.com", 20 + i % 60
+			));
+		}
+		page = new CustomerPage(customers, 100_000L + pageSize);
+		registration = new CustomerRegistrationRequest("Alex Jamila", "alex.jamila@amigoscode.com", 31);
+		encodedPage = mapper.writeValueAsBytes(page);
+		encodedRegistration = mapper.writeValueAsBytes(registration);
+	}
+
+	@Benchmark
+	public byte[] writePage(Payload payload) throws IOException {
+		return payload.record(mapper.writeValueAsBytes(page));
+	}
+
+	@Benchmark
+	public CustomerPage readPage() throws IOException {
+		return mapper.readValue(encodedPage, CustomerPage.class);
+	}
+
+	@Benchmark
+	public byte[] writeRegistration(Payload payload) throws IOException {
+		return payload.record(mapper.writeValueAsBytes(registration));
+	}
+
+	@Benchmark
+	public CustomerRegistrationRequest readRegistration() throws IOException {
+		return mapper.readValue(encodedRegistration, CustomerRegistrationRequest.class);
+	}
+}
@@ -0,0 +1,98 @@
+package com.example.demo.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import com.example.demo.BenchmarkApplication;
+
+/**
+ * Throughput of the jdbc backend under the {@code performance} profile as the Hikari pool grows,
+ * with more client threads than connections so the pool is the contended resource. Compare against
+ * the pool size the profile picks for this machine, logged at startup; {@code tuned=false} runs the
+ * same pool sizes with the driver defaults.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class DataSourcePoolBenchmark {
+
+	@Param({"2", "4", "8", "16", "32", "64"})
+	public int poolSize;
+
+	@Param({"true", "false"})
+	public boolean tuned;
+
+	@Param({"10000"})
+	public int customers;
+
+	private BenchmarkApplication application;
+	private CustomerDao customerDao;
+	private long[] ids;
+	private final AtomicInteger ages = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		application = BenchmarkApplication.start(
+				"spring.profiles.active=" + (tuned ? "performance" : "default"),
+				"spring.datasource.hikari.maximum-pool-size=" + poolSize,
+				"customer.dao.backend=jdbc",
+				"customer.email-filter.enabled=false"
+		);
+		customerDao = application.getBean(CustomerDataAccessConfig.BACKEND, CustomerDao.class);
+		String run = UUID.randomUUID().toString();
+		List<Customer> seed = new ArrayList<>(customers);
+		for (int i = 0; i < customers; i++) {
+			seed.add(new Customer("customer " + i, "pool-" + i + "-" + run + "@amigoscode.com", 20 + i % 60));
+		}
+		ids = customerDao.insertCustomers(seed).stream().mapToLong(Customer::getId).toArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		application.close();
+	}
+
+	@Benchmark
+	public Optional<Customer> selectCustomerById() {
+		return customerDao.selectCustomerById(randomId());
+	}
+
+	@Benchmark
+	public List<Customer> selectCustomers() {
+		return customerDao.selectCustomers(randomId(), 50);
+	}
+
+	@Benchmark
+	public Optional<Customer> updateCustomer() {
+		Customer update = new Customer();
+		update.setId(randomId());
+		update.setAge(18 + ages.incrementAndGet() % 80);
+		return customerDao.updateCustomer(update);
+	}
+
+	private long randomId() {
+		return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+	}
+}
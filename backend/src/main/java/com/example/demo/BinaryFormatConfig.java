@@ -0,0 +1,36 @@
+package com.example.demo;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Smile and CBOR message converters for service-to-service callers that send {@code Accept} or
+ * {@code Content-Type} with one of these types. Spring MVC would add both on its own once the
+ * formats are on the classpath, but with a bare mapper; these are built from Spring Boot's
+ * builder so they carry the same modules and settings as the JSON converter.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BinaryFormatConfig {
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+	/**
+	 * RFC 8742 CBOR sequence, for streams of concatenated items such as the export.
+	 */
+	public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+	@Bean
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+	}
+
+	@Bean
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+	}
+}
@@ -0,0 +1,85 @@
+package com.example.demo;
+
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Active with the {@code performance} profile: sizes the Hikari pool from the number of cores unless
+ * {@code spring.datasource.hikari.maximum-pool-size} is set, and logs the pool and driver settings
+ * the application actually runs with once it has started.
+ */
+@Configuration
+@Profile("performance")
+public class DataSourceTuningConfig {
+	private static final Logger LOGGER = LoggerFactory.getLogger(DataSourceTuningConfig.class);
+	static final String MAXIMUM_POOL_SIZE = "spring.datasource.hikari.maximum-pool-size";
+
+	/**
+	 * Connections beyond a small multiple of the cores only queue inside PostgreSQL instead of in the pool,
+	 * so a fixed pool of {@code cores * connections-per-core + 1} is the starting point.
+	 */
+	static int poolSize(int cores, int connectionsPerCore) {
+		return cores * connectionsPerCore + 1;
+	}
+
+	@Bean
+	static BeanPostProcessor hikariPoolSizing(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource dataSource
+						&& !Binder.get(environment).bind(MAXIMUM_POOL_SIZE, Integer.class).isBound()) {
+					int size = poolSize(
+							Runtime.getRuntime().availableProcessors(),
+							environment.getProperty("customer.datasource.connections-per-core", Integer.class, 2)
+					);
+					dataSource.setMaximumPoolSize(size);
+					dataSource.setMinimumIdle(size);
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	ApplicationRunner dataSourceSelfCheck(DataSource dataSource) {
+		return args -> {
+			HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			int maxConnections = jdbcTemplate.queryForObject("SHOW max_connections", Integer.class);
+			int reserved = jdbcTemplate.queryForObject("SHOW superuser_reserved_connections", Integer.class);
+			String serverVersion = jdbcTemplate.queryForObject("SHOW server_version", String.class);
+			LOGGER.info(
+					"DataSource {}: maximumPoolSize={}, minimumIdle={}, connectionTimeout={}ms, maxLifetime={}ms, "
+							+ "driver properties {}, cores={}, PostgreSQL {} max_connections={}",
+					pool.getPoolName(),
+					pool.getMaximumPoolSize(),
+					pool.getMinimumIdle(),
+					pool.getConnectionTimeout(),
+					pool.getMaxLifetime(),
+					pool.getDataSourceProperties(),
+					Runtime.getRuntime().availableProcessors(),
+					serverVersion,
+					maxConnections
+			);
+			if (pool.getMaximumPoolSize() > maxConnections - reserved) {
+				LOGGER.warn(
+						"DataSource {} may open {} connections but PostgreSQL accepts only {} non-superuser connections",
+						pool.getPoolName(),
+						pool.getMaximumPoolSize(),
+						maxConnections - reserved
+				);
+			}
+		};
+	}
+}
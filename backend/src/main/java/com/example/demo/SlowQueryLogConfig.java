@@ -0,0 +1,44 @@
+package com.example.demo;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Wraps the {@link DataSource} so every statement, whether it comes from {@code JdbcTemplate},
+ * Hibernate or Flyway, passes through the {@link SlowQueryLogger}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "customer.slow-query-log.enabled", havingValue = "true")
+public class SlowQueryLogConfig {
+
+	@Bean
+	static BeanPostProcessor slowQueryLogDataSourceProxy(
+			@Value("${customer.slow-query-log.threshold:100ms}") Duration threshold,
+			@Value("${customer.slow-query-log.sample-rate:1.0}") double sampleRate
+	) {
+		SlowQueryLogger slowQueryLogger = new SlowQueryLogger(
+				threshold,
+				sampleRate,
+				() -> ThreadLocalRandom.current().nextDouble()
+		);
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+					return ProxyDataSourceBuilder.create(beanName, dataSource)
+							.listener(slowQueryLogger)
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+}
@@ -0,0 +1,114 @@
+package com.example.demo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.DoubleSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Logs statements that ran for at least the threshold, with their bind parameters and duration.
+ * Statements under the threshold cost a comparison and are never formatted; of the slow ones only a
+ * {@code sampleRate} fraction is logged so a database stall does not flood the log.
+ */
+final class SlowQueryLogger implements QueryExecutionListener {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLogger.class);
+	private static final int MAX_ENTRY_LENGTH = 4096;
+
+	private final long thresholdMillis;
+	private final double sampleRate;
+	private final DoubleSupplier random;
+	private final DefaultQueryLogEntryCreator entryCreator = new BoundedQueryLogEntryCreator(MAX_ENTRY_LENGTH);
+
+	SlowQueryLogger(Duration threshold, double sampleRate, DoubleSupplier random) {
+		this.thresholdMillis = threshold.toMillis();
+		this.sampleRate = sampleRate;
+		this.random = random;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		if (!isLogged(execInfo) || !LOGGER.isWarnEnabled()) {
+			return;
+		}
+		String entry = entryCreator.getLogEntry(execInfo, queryInfoList, true, false, false);
+		if (entry.length() > MAX_ENTRY_LENGTH) {
+			// only a long statement text gets here, the parameters already stopped at the limit
+			entry = entry.substring(0, MAX_ENTRY_LENGTH) + "... (" + entry.length() + " characters)";
+		}
+		LOGGER.warn("Slow query took {}ms (threshold {}ms): {}", execInfo.getElapsedTime(), thresholdMillis, entry);
+	}
+
+	boolean isLogged(ExecutionInfo execInfo) {
+		return execInfo.getElapsedTime() >= thresholdMillis
+				&& (sampleRate >= 1 || random.getAsDouble() < sampleRate);
+	}
+
+	/**
+	 * Stops formatting bind parameters once the entry reaches {@code maxLength}. Bulk statements bind whole
+	 * arrays or one parameter set per batched row; the statement and the start of the parameters are enough,
+	 * so the rest is never turned into text only to be cut off.
+	 */
+	static final class BoundedQueryLogEntryCreator extends DefaultQueryLogEntryCreator {
+		private final int maxLength;
+
+		BoundedQueryLogEntryCreator(int maxLength) {
+			this.maxLength = maxLength;
+		}
+
+		@Override
+		protected void writeParamsEntry(StringBuilder sb, ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			if (execInfo.getStatementType() == StatementType.CALLABLE) {
+				super.writeParamsEntry(sb, execInfo, queryInfoList);
+				return;
+			}
+			sb.append("Params:[");
+			for (QueryInfo queryInfo : queryInfoList) {
+				for (List<ParameterSetOperation> parameters : queryInfo.getParametersList()) {
+					if (!appendParameters(sb, parameters)) {
+						sb.append("...]");
+						return;
+					}
+				}
+			}
+			chompIfEndWith(sb, ',');
+			sb.append(']');
+		}
+
+		private boolean appendParameters(StringBuilder sb, List<ParameterSetOperation> parameters) {
+			if (sb.length() >= maxLength) {
+				return false;
+			}
+			// keyed by index like the default creator, a parameter set again replaces the earlier one
+			SortedMap<Integer, ParameterSetOperation> byIndex = new TreeMap<>();
+			for (ParameterSetOperation parameter : parameters) {
+				byIndex.put(Integer.valueOf(getParameterKeyToDisplay(parameter)), parameter);
+			}
+			sb.append('(');
+			for (ParameterSetOperation parameter : byIndex.values()) {
+				String value = getParameterValueToDisplay(parameter);
+				int room = maxLength - sb.length();
+				if (value.length() > room) {
+					sb.append(value, 0, Math.max(room, 0));
+					return false;
+				}
+				sb.append(value).append(',');
+			}
+			chompIfEndWith(sb, ',');
+			sb.append("),");
+			return true;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Applies every successful write to {@link CustomerAggregates}. Deletes and updates that change
+ * an email or age take the row they replaced from the write itself. Bulk updates do not report the
+ * rows they replaced, so one that changes emails or ages reconciles instead.
+ */
+public class AggregatingCustomerDao extends ForwardingCustomerDao {
+	private final CustomerAggregates aggregates;
+
+	public AggregatingCustomerDao(CustomerDao delegate, CustomerAggregates aggregates) {
+		super(delegate);
+		this.aggregates = aggregates;
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		Optional<Long> id = delegate.insertCustomer(customer);
+		if (id.isPresent()) {
+			aggregates.add(customer);
+		}
+		return id;
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		List<Customer> inserted = delegate.insertCustomers(customers);
+		inserted.forEach(aggregates::add);
+		return inserted;
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		if (update.getEmail() == null && update.getAge() == null) {
+			return delegate.updateCustomer(update);
+		}
+		return updateCustomerReturningChange(update).map(CustomerChange::current);
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		Optional<CustomerChange> change = delegate.updateCustomerReturningChange(update);
+		change.ifPresent(c -> aggregates.replace(c.previous(), c.current()));
+		return change;
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		return deleteCustomerReturningRow(customer).isPresent() ? 1 : 0;
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		Optional<Customer> deleted = delegate.deleteCustomerReturningRow(customer);
+		deleted.ifPresent(aggregates::remove);
+		return deleted;
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		Customer customer = new Customer();
+		customer.setId(customerId);
+		return deleteCustomer(customer);
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		List<Customer> deleted = delegate.deleteCustomersById(customerIds);
+		deleted.forEach(aggregates::remove);
+		return deleted;
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		List<Customer> deleted = delegate.deleteCustomers(filter);
+		deleted.forEach(aggregates::remove);
+		return deleted;
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		List<CustomerBulkResult> results = delegate.updateCustomers(updates);
+		if (updates.stream().anyMatch(update -> update.getEmail() != null || update.getAge() != null)) {
+			aggregates.reconcileSoon();
+		}
+		return results;
+	}
+}
@@ -0,0 +1,181 @@
+package com.example.demo.customer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public class CachingCustomerDao extends ForwardingCustomerDao {
+	private final AsyncCache<Long, Customer> customersById;
+	private final Cache<String, Long> customerIdsByEmail;
+
+	public CachingCustomerDao(CustomerDao delegate, long maximumSize, Duration expireAfterWrite) {
+		super(delegate);
+		this.customerIdsByEmail = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.build();
+		// email entries only ever point at cached customers, so they leave together
+		this.customersById = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(expireAfterWrite)
+				.recordStats()
+				.<Long, Customer>evictionListener((id, customer, cause) ->
+						customerIdsByEmail.invalidate(customer.getEmail()))
+				.buildAsync();
+	}
+
+	public AsyncCache<Long, Customer> getCustomersById() {
+		return customersById;
+	}
+
+	public Cache<String, Long> getCustomerIdsByEmail() {
+		return customerIdsByEmail;
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		// the load runs outside the cache's map lock so a virtual thread waiting on the database is not pinned;
+		// concurrent callers for the same id share the pending future and an invalidate simply drops it
+		CompletableFuture<Customer> load = new CompletableFuture<>();
+		CompletableFuture<Customer> cached = customersById.get(id, (key, executor) -> load);
+		if (cached != load) {
+			return Optional.ofNullable(join(cached));
+		}
+		Customer customer;
+		try {
+			customer = delegate.selectCustomerById(id).orElse(null);
+		} catch (RuntimeException e) {
+			load.completeExceptionally(e);
+			throw e;
+		}
+		if (customer != null) {
+			customerIdsByEmail.put(customer.getEmail(), customer.getId());
+		}
+		load.complete(customer);
+		if (customer != null && customersById.asMap().get(id) != load) {
+			customerIdsByEmail.invalidate(customer.getEmail());
+		}
+		return Optional.ofNullable(customer);
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		// the version decides a 304, and cached entries only see this instance's writes, so it is always read
+		// from the delegate; a hit here could keep answering 304 for a row another instance has since changed
+		return delegate.selectCustomerVersion(id);
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		return customerIdsByEmail.getIfPresent(email) != null
+				|| delegate.existsPersonWithEmail(email);
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long customerId) {
+		return loaded(customersById.getIfPresent(customerId)) != null
+				|| delegate.existsPersonWithId(customerId);
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		try {
+			return delegate.updateCustomer(update);
+		} finally {
+			invalidate(update.getId());
+		}
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		try {
+			return delegate.updateCustomerReturningChange(update);
+		} finally {
+			invalidate(update.getId());
+		}
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		try {
+			return delegate.deleteCustomer(customer);
+		} finally {
+			invalidate(customer.getId());
+		}
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		try {
+			return delegate.deleteCustomerReturningRow(customer);
+		} finally {
+			invalidate(customer.getId());
+		}
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		try {
+			return delegate.deleteCustomerById(customerId);
+		} finally {
+			invalidate(customerId);
+		}
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		try {
+			return delegate.deleteCustomersById(customerIds);
+		} finally {
+			customerIds.forEach(this::invalidate);
+		}
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		// a single statement, so a failure deleted nothing
+		List<Customer> deleted = delegate.deleteCustomers(filter);
+		deleted.forEach(customer -> invalidate(customer.getId()));
+		return deleted;
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		try {
+			return delegate.updateCustomers(updates);
+		} finally {
+			updates.forEach(update -> invalidate(update.getId()));
+		}
+	}
+
+	private void invalidate(Long id) {
+		Customer removed = loaded(customersById.asMap().remove(id));
+		if (removed != null) {
+			customerIdsByEmail.invalidate(removed.getEmail());
+		}
+	}
+
+	private static Customer loaded(CompletableFuture<Customer> customer) {
+		if (customer == null || !customer.isDone() || customer.isCompletedExceptionally()) {
+			return null;
+		}
+		return customer.join();
+	}
+
+	private static Customer join(CompletableFuture<Customer> customer) {
+		try {
+			return customer.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package com.example.demo.customer;
 
+import java.util.Locale;
 import java.util.Objects;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -10,6 +12,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(
@@ -22,6 +25,11 @@ import jakarta.persistence.UniqueConstraint;
 		}
 )
 public class Customer {
+	/**
+	 * Version of a row that has never been updated; every update increments it.
+	 */
+	public static final long INITIAL_VERSION = 0;
+
 	@Id
 	@SequenceGenerator(
 			name = "customer_id_seq",
@@ -45,6 +53,13 @@ public class Customer {
 			nullable = false
 	)
 	private Integer age;
+	// sent as the ETag rather than in the body
+	@Version
+	@Column(
+			nullable = false
+	)
+	@JsonIgnore
+	private Long version;
 
 	public Customer() {
 	}
@@ -56,6 +71,11 @@ public class Customer {
 		this.age = age;
 	}
 
+	public Customer(Long id, String name, String email, Integer age, Long version) {
+		this(id, name, email, age);
+		this.version = version;
+	}
+
 	public Customer(String name, String email, Integer age) {
 		this.name = name;
 		this.email = email;
@@ -95,6 +115,43 @@ public class Customer {
 		this.age = age;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	/**
+	 * Same as {@code lower(split_part(email, '@', 2))} in PostgreSQL.
+	 */
+	static String emailDomainOf(String email) {
+		int at = email.indexOf('@');
+		if (at < 0) {
+			return "";
+		}
+		int end = email.indexOf('@', at + 1);
+		return email.substring(at + 1, end < 0 ? email.length() : end).toLowerCase(Locale.ROOT);
+	}
+
+	boolean applyUpdate(Customer update) {
+		boolean changes = false;
+		if (update.getName() != null && !update.getName().equals(name)) {
+			name = update.getName();
+			changes = true;
+		}
+		if (update.getEmail() != null && !update.getEmail().equals(email)) {
+			email = update.getEmail();
+			changes = true;
+		}
+		if (update.getAge() != null && !update.getAge().equals(age)) {
+			age = update.getAge();
+			changes = true;
+		}
+		return changes;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o)
@@ -118,6 +175,7 @@ public class Customer {
 				", name='" + name + '\'' +
 				", email='" + email + '\'' +
 				", age=" + age +
+				", version=" + version +
 				'}';
 	}
 }
@@ -0,0 +1,178 @@
+package com.example.demo.customer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Customer counts per age and per email domain, kept current by {@link AggregatingCustomerDao}
+ * so reading them never touches the customer table. Deltas can drift when writes race each other
+ * or a reconciliation, so the counts are periodically replaced with a fresh count from the backend,
+ * a single GROUP BY for the database backends.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.statistics.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerAggregates implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CustomerAggregates.class);
+	static final int AGE_BUCKET_WIDTH = 10;
+
+	private final CustomerDao customerDao;
+	private final Duration reconcileInterval;
+	private final ScheduledExecutorService reconciler;
+	private final Timer reconcileTimer;
+	private volatile Counts counts = new Counts();
+	private volatile Instant reconciledAt;
+
+	public CustomerAggregates(
+			@Qualifier(CustomerDataAccessConfig.BACKEND) CustomerDao customerDao,
+			@Value("${customer.statistics.reconcile-interval:10m}") Duration reconcileInterval,
+			MeterRegistry meterRegistry
+	) {
+		this.customerDao = customerDao;
+		this.reconcileInterval = reconcileInterval;
+		this.reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "customer-statistics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.reconcileTimer = meterRegistry.timer("customer.statistics.reconcile");
+		Gauge.builder("customer.statistics.customers", this, aggregates -> aggregates.counts.customers.sum())
+				.description("Customers counted by the incrementally maintained statistics")
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void reconcileInBackground() {
+		reconciler.scheduleWithFixedDelay(
+				this::reconcileQuietly,
+				0,
+				reconcileInterval.toMillis(),
+				TimeUnit.MILLISECONDS
+		);
+	}
+
+	void reconcile() {
+		CustomerCounts fresh = reconcileTimer.record(customerDao::countCustomers);
+		Counts replacement = new Counts();
+		fresh.customersByAge().forEach((age, customers) -> {
+			replacement.customers.add(customers);
+			replacement.customersByAge.computeIfAbsent(age, key -> new LongAdder()).add(customers);
+		});
+		fresh.customersByEmailDomain().forEach((domain, customers) ->
+				replacement.customersByEmailDomain.computeIfAbsent(domain, key -> new LongAdder()).add(customers));
+		// a delta applied to the old counts while the query ran is lost until the next run
+		counts = replacement;
+		reconciledAt = Instant.now();
+	}
+
+	/**
+	 * Reconciles on the background thread as soon as it is free.
+	 */
+	void reconcileSoon() {
+		reconciler.execute(this::reconcileQuietly);
+	}
+
+	public boolean isReconciled() {
+		return reconciledAt != null;
+	}
+
+	void add(Customer customer) {
+		counts.add(customer, 1);
+	}
+
+	void remove(Customer customer) {
+		counts.add(customer, -1);
+	}
+
+	void replace(Customer previous, Customer current) {
+		Counts target = counts;
+		target.add(previous, -1);
+		target.add(current, 1);
+	}
+
+	/**
+	 * @param topDomains how many of the largest email domains to include
+	 */
+	public CustomerStatistics statistics(int topDomains) {
+		Counts current = counts;
+		Map<Integer, Long> buckets = new TreeMap<>();
+		current.customersByAge.forEach((age, customers) ->
+				buckets.merge(Math.floorDiv(age, AGE_BUCKET_WIDTH) * AGE_BUCKET_WIDTH, customers.sum(), Long::sum));
+		List<CustomerStatistics.AgeBucket> ageHistogram = new ArrayList<>(buckets.size());
+		buckets.forEach((from, customers) -> {
+			if (customers > 0) {
+				ageHistogram.add(new CustomerStatistics.AgeBucket(from, from + AGE_BUCKET_WIDTH - 1, customers));
+			}
+		});
+
+		Comparator<CustomerStatistics.EmailDomain> bySize = Comparator
+				.comparingLong(CustomerStatistics.EmailDomain::customers)
+				.thenComparing(CustomerStatistics.EmailDomain::domain, Comparator.reverseOrder());
+		PriorityQueue<CustomerStatistics.EmailDomain> largest = new PriorityQueue<>(topDomains + 1, bySize);
+		current.customersByEmailDomain.forEach((domain, customers) -> {
+			long sum = customers.sum();
+			if (sum > 0) {
+				largest.add(new CustomerStatistics.EmailDomain(domain, sum));
+				if (largest.size() > topDomains) {
+					largest.poll();
+				}
+			}
+		});
+		List<CustomerStatistics.EmailDomain> emailDomains = new ArrayList<>(largest);
+		emailDomains.sort(bySize.reversed());
+
+		return new CustomerStatistics(current.customers.sum(), ageHistogram, emailDomains, reconciledAt);
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		reconciler.shutdownNow();
+		reconciler.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	private void reconcileQuietly() {
+		try {
+			reconcile();
+		} catch (RuntimeException e) {
+			LOGGER.error("Customer statistics reconciliation failed, retrying on the next run", e);
+		}
+	}
+
+	private static final class Counts {
+		private final LongAdder customers = new LongAdder();
+		private final ConcurrentMap<Integer, LongAdder> customersByAge = new ConcurrentHashMap<>();
+		private final ConcurrentMap<String, LongAdder> customersByEmailDomain = new ConcurrentHashMap<>();
+
+		private void add(Customer customer, int delta) {
+			customers.add(delta);
+			customersByAge.computeIfAbsent(customer.getAge(), age -> new LongAdder()).add(delta);
+			customersByEmailDomain.computeIfAbsent(
+					Customer.emailDomainOf(customer.getEmail()),
+					domain -> new LongAdder()
+			).add(delta);
+		}
+	}
+}
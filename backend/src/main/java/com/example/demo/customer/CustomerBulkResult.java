@@ -0,0 +1,13 @@
+package com.example.demo.customer;
+
+public record CustomerBulkResult(
+		Long id,
+		Status status
+) {
+	public enum Status {
+		UPDATED,
+		DELETED,
+		NOT_FOUND,
+		DUPLICATE
+	}
+}
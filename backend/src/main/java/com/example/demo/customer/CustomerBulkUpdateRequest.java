@@ -0,0 +1,9 @@
+package com.example.demo.customer;
+
+public record CustomerBulkUpdateRequest(
+		Long id,
+		String name,
+		String email,
+		Integer age
+) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo.customer;
+
+/**
+ * A row before and after an update.
+ */
+public record CustomerChange(
+		Customer previous,
+		Customer current
+) {
+}
@@ -1,6 +1,16 @@
 package com.example.demo.customer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -8,31 +18,168 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.BinaryFormatConfig;
+import com.example.demo.exception.PreconditionFailedException;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerController {
+	private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(BinaryFormatConfig.APPLICATION_SMILE_VALUE);
+	// JSON's tags carry no suffix, so they read the same as before the binary formats had tags of their own
+	private static final String JSON_TAG_SUFFIX = "";
+	private static final String SMILE_TAG_SUFFIX = "-smile";
+	private static final String CBOR_TAG_SUFFIX = "-cbor";
+
 	private final CustomerService customerService;
+	private final ObjectMapper objectMapper;
+	private final ObjectMapper smileMapper;
+	private final ObjectMapper cborMapper;
 
-	public CustomerController(CustomerService customerService) {
+	public CustomerController(
+			CustomerService customerService,
+			ObjectMapper objectMapper,
+			MappingJackson2SmileHttpMessageConverter smileConverter,
+			MappingJackson2CborHttpMessageConverter cborConverter
+	) {
 		this.customerService = customerService;
+		this.objectMapper = objectMapper;
+		this.smileMapper = smileConverter.getObjectMapper();
+		this.cborMapper = cborConverter.getObjectMapper();
 	}
 
 	//	@RequestMapping(path = "api/v1/customer", method = RequestMethod.GET)
 	@GetMapping
-	public List<Customer> getCustomers() {
-		return customerService.getAllCustomers();
+	public ResponseEntity<CustomerPage> getCustomers(
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", defaultValue = "50") int limit,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+	) {
+		CustomerPage page = customerService.getCustomers(after, limit);
+		// a matching If-None-Match is answered with 304 before the page is serialised
+		return ResponseEntity.ok()
+				.eTag(eTagOf(page, tagSuffixOf(accept)))
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(page);
+	}
+
+	@GetMapping("search")
+	public List<Customer> searchCustomers(CustomerSearchRequest request) {
+		return customerService.searchCustomers(request);
+	}
+
+	@GetMapping("search/fuzzy")
+	public List<CustomerMatch> fuzzySearchCustomers(
+			@RequestParam("query") String query,
+			@RequestParam(value = "limit", required = false) Integer limit
+	) {
+		return customerService.fuzzySearchCustomers(query, limit);
+	}
+
+	@GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public StreamingResponseBody exportCustomers() {
+		return export(objectMapper, true);
+	}
+
+	// binary formats delimit their own values, so the export is a plain sequence of customers
+
+	@GetMapping(value = "export", produces = BinaryFormatConfig.APPLICATION_SMILE_VALUE)
+	public StreamingResponseBody exportCustomersAsSmile() {
+		return export(smileMapper, false);
+	}
+
+	@GetMapping(value = "export", produces = BinaryFormatConfig.APPLICATION_CBOR_SEQ_VALUE)
+	public StreamingResponseBody exportCustomersAsCbor() {
+		return export(cborMapper, false);
+	}
+
+	private StreamingResponseBody export(ObjectMapper mapper, boolean newlineDelimited) {
+		return outputStream -> {
+			try (JsonGenerator generator = mapper.createGenerator(outputStream)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+				customerService.exportCustomers(customer -> {
+					try {
+						CustomerViewWriter.write(generator, customer);
+						if (newlineDelimited) {
+							generator.writeRaw('\n');
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+	}
+
+	@GetMapping("statistics")
+	public CustomerStatistics getStatistics(
+			@RequestParam(value = "domains", required = false) Integer domains
+	) {
+		return customerService.getStatistics(domains);
+	}
+
+	// advisory only: the email filter sees other instances' registrations once it is refreshed,
+	// and registering still relies on the unique email constraint
+	@GetMapping("email-availability")
+	public EmailAvailability getEmailAvailability(@RequestParam("email") String email) {
+		return new EmailAvailability(email, customerService.isEmailAvailable(email));
 	}
 
 	@GetMapping("{customerId}")
-	public Customer getCustomer(@PathVariable Long customerId) {
-		return customerService.getCustomer(customerId);
+	public ResponseEntity<Customer> getCustomer(
+			@PathVariable Long customerId,
+			WebRequest request,
+			HttpServletResponse response
+	) {
+		// set here rather than on the entity so that a 304 carries it too
+		response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		String tagSuffix = tagSuffixOf(request.getHeader(HttpHeaders.ACCEPT));
+		// revalidating only needs the version, so a 304 never loads or serialises the row
+		if(request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& request.checkNotModified(eTagOf(customerService.getCustomerVersion(customerId), tagSuffix))){
+			return null;
+		}
+		Customer customer = customerService.getCustomer(customerId);
+		return ResponseEntity.ok().eTag(eTagOf(customer.getVersion(), tagSuffix)).body(customer);
 	}
 
 	@PostMapping()
-	public void registerCustomer(@RequestBody CustomerRegistrationRequest request){
-		customerService.addCustomer(request);
+	public CustomerRegistrationResult registerCustomer(@RequestBody CustomerRegistrationRequest request){
+		Long id = customerService.addCustomer(request);
+		return new CustomerRegistrationResult(request.email(), id, CustomerRegistrationResult.Status.CREATED);
+	}
+
+	@PostMapping("batch")
+	public List<CustomerRegistrationResult> registerCustomers(
+			@RequestBody List<CustomerRegistrationRequest> requests
+	){
+		return customerService.addCustomers(requests);
+	}
+
+	@PutMapping("batch")
+	public List<CustomerBulkResult> updateCustomers(@RequestBody List<CustomerBulkUpdateRequest> requests){
+		return customerService.updateCustomers(requests);
+	}
+
+	@PostMapping("batch/delete")
+	public List<CustomerBulkResult> deleteCustomers(@RequestBody List<Long> customerIds){
+		return customerService.deleteCustomers(customerIds);
+	}
+
+	@DeleteMapping
+	public List<CustomerBulkResult> deleteCustomers(CustomerSearchRequest filter){
+		return customerService.deleteCustomers(filter);
 	}
 
 	@DeleteMapping("{customerId}")
@@ -41,11 +188,93 @@ public class CustomerController {
 	}
 
 	@PutMapping("{customerId}")
-	public void updateCustomer(
+	public ResponseEntity<Customer> updateCustomer(
 			@PathVariable("customerId") Long customerId,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
 			@RequestBody CustomerUpdateRequest customerUpdateRequest
 			){
-		customerService.updateCustomer(customerId, customerUpdateRequest);
+		Customer updated = customerService.updateCustomer(
+				customerId, customerUpdateRequest, versionOf(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(eTagOf(updated.getVersion(), tagSuffixOf(accept)))
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(updated);
+	}
+
+	/**
+	 * Picks the format content negotiation will write for {@code accept}: the most preferred type
+	 * decides, and JSON wins wildcards because its converter comes first.
+	 *
+	 * @return the suffix that keeps that format's tags apart from the other formats' tags
+	 */
+	static String tagSuffixOf(String accept) {
+		if(accept == null || accept.isBlank()){
+			return JSON_TAG_SUFFIX;
+		}
+		List<MediaType> accepted;
+		try {
+			accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+			MimeTypeUtils.sortBySpecificity(accepted);
+		} catch (IllegalArgumentException e) {
+			// negotiation rejects the header on its own
+			return JSON_TAG_SUFFIX;
+		}
+		for (MediaType type : accepted) {
+			if(type.getQualityValue() == 0){
+				continue;
+			}
+			if(type.isCompatibleWith(MediaType.APPLICATION_JSON)){
+				return JSON_TAG_SUFFIX;
+			}
+			if(type.isCompatibleWith(APPLICATION_SMILE)){
+				return SMILE_TAG_SUFFIX;
+			}
+			if(type.isCompatibleWith(MediaType.APPLICATION_CBOR)){
+				return CBOR_TAG_SUFFIX;
+			}
+		}
+		return JSON_TAG_SUFFIX;
+	}
+
+	private static String eTagOf(Long version, String tagSuffix) {
+		return "\"" + version + tagSuffix + "\"";
+	}
+
+	private static String eTagOf(CustomerPage page, String tagSuffix) {
+		Hasher hasher = Hashing.murmur3_128().newHasher();
+		for (Customer customer : page.customers()) {
+			hasher.putLong(customer.getId()).putLong(customer.getVersion());
+		}
+		hasher.putLong(page.nextCursor() == null ? -1 : page.nextCursor());
+		return "\"" + hasher.hash() + tagSuffix + "\"";
+	}
+
+	/**
+	 * @return the version a strong If-Match tag names, or null when the update is unconditional; a
+	 * tag of any format names the version, since every format writes the same row
+	 */
+	static Long versionOf(String ifMatch) {
+		if(ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")){
+			return null;
+		}
+		String tag = ifMatch.strip();
+		if(tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")){
+			String opaque = tag.substring(1, tag.length() - 1);
+			for (String suffix : List.of(SMILE_TAG_SUFFIX, CBOR_TAG_SUFFIX)) {
+				if(opaque.endsWith(suffix)){
+					opaque = opaque.substring(0, opaque.length() - suffix.length());
+					break;
+				}
+			}
+			try {
+				return Long.parseLong(opaque);
+			} catch (NumberFormatException e) {
+				// not a tag this API handed out
+			}
+		}
+		// weak tags, lists and foreign tags can never match the current version
+		throw new PreconditionFailedException("If-Match must be a single tag returned by this API");
 	}
 
 }
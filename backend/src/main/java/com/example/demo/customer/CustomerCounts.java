@@ -0,0 +1,9 @@
+package com.example.demo.customer;
+
+import java.util.Map;
+
+public record CustomerCounts(
+		Map<Integer, Long> customersByAge,
+		Map<String, Long> customersByEmailDomain
+) {
+}
@@ -2,22 +2,102 @@ package com.example.demo.customer;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface CustomerDao {
 	List<Customer> selectAllCustomers();
 
+	List<Customer> selectCustomers(Long afterId, int limit);
+
+	List<Customer> searchCustomers(CustomerSearch search);
+
+	List<CustomerMatch> fuzzySearchCustomers(String query, int limit);
+
+	/**
+	 * Streams every customer in id order without holding them all in memory.
+	 */
+	void forEachCustomer(Consumer<CustomerView> action);
+
 	Optional<Customer> selectCustomerById(Long id);
 
-	void insertCustomer(Customer customer);
+	Optional<Long> selectCustomerVersion(Long id);
+
+	/**
+	 * Counts customers per age and per lower-cased email domain.
+	 */
+	CustomerCounts countCustomers();
+
+	Optional<Long> insertCustomer(Customer customer);
+
+	List<Customer> insertCustomers(List<Customer> customers);
 
 	boolean existsPersonWithEmail(String email);
 
-	void deleteCustomer(Customer customer);
+	/**
+	 * Deletes the customer with the id of {@code customer}. When {@code customer} carries a version
+	 * the row is only deleted if it is still at that version.
+	 *
+	 * @return the number of rows deleted, 0 when the row is missing or at another version
+	 */
+	int deleteCustomer(Customer customer);
+
+	/**
+	 * Same as {@link #deleteCustomer(Customer)}, for callers that need the deleted row. Backends that
+	 * can delete and read it in one statement override this; decorators that change how deletes behave
+	 * override it alongside {@code deleteCustomer}.
+	 *
+	 * @return the row as it was deleted, or empty when nothing was deleted
+	 */
+	default Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		Optional<Customer> previous = selectCustomerById(customer.getId());
+		return deleteCustomer(customer) > 0 ? previous : Optional.empty();
+	}
 
 	boolean existsPersonWithId(Long customerId);
 
-	void deleteCustomerById(Long customerId);
+	/**
+	 * @return the number of rows deleted, 0 when there was no such customer
+	 */
+	int deleteCustomerById(Long customerId);
+
+	/**
+	 * @return the customers that were deleted; ids that did not exist are left out
+	 */
+	List<Customer> deleteCustomersById(List<Long> customerIds);
+
+	/**
+	 * Deletes up to {@code filter.limit()} customers matching the filters of {@code filter}, lowest ids
+	 * first; its order and offset are ignored. Callers repeat the call until it deletes nothing.
+	 *
+	 * @return the customers that were deleted
+	 */
+	List<Customer> deleteCustomers(CustomerSearch filter);
+
+	/**
+	 * Applies the non-null fields of each update, skipping updates to an email another customer has.
+	 *
+	 * @return one outcome per update, in no particular order
+	 */
+	List<CustomerBulkResult> updateCustomers(List<Customer> updates);
+
+	/**
+	 * Applies the non-null fields of {@code update}. When {@code update} carries a version the row is
+	 * only changed if it is still at that version.
+	 *
+	 * @return the updated customer, or empty when the row is missing, unchanged or at another version
+	 */
+	Optional<Customer> updateCustomer(Customer update);
 
-	void updateCustomer(Customer customer);
+	/**
+	 * Same as {@link #updateCustomer(Customer)}, for callers that need the row it replaced. Backends
+	 * that can update and read it in one statement override this; decorators that change how updates
+	 * behave override it alongside {@code updateCustomer}.
+	 *
+	 * @return the row before and after the update, or empty when nothing was updated
+	 */
+	default Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		Optional<Customer> previous = selectCustomerById(update.getId());
+		return updateCustomer(update).flatMap(current -> previous.map(p -> new CustomerChange(p, current)));
+	}
 
 }
@@ -0,0 +1,116 @@
+package com.example.demo.customer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class CustomerDataAccessConfig {
+	static final String BACKEND = "customerDaoBackend";
+
+	@Bean(BACKEND)
+	public CustomerDao customerDaoBackend(
+			@Value("${customer.dao.backend:jdbc}") String backend,
+			@Qualifier("jdbc") CustomerDao jdbc,
+			@Qualifier("jpa") CustomerDao jpa,
+			@Qualifier("list") CustomerDao list,
+			@Value("${customer.dao.hot-tier.maximum-size:10000}") long hotTierMaximumSize,
+			MeterRegistry meterRegistry
+	) {
+		return switch (backend) {
+			case "jdbc" -> jdbc;
+			case "jpa" -> jpa;
+			case "list" -> list;
+			case "tiered" -> {
+				TieredCustomerDao tiered = new TieredCustomerDao(jdbc, hotTierMaximumSize);
+				CaffeineCacheMetrics.monitor(meterRegistry, tiered.getHotTier(), "customer.hot-tier");
+				yield tiered;
+			}
+			default -> throw new IllegalArgumentException(
+					"unknown customer.dao.backend [%s], expected jdbc, jpa, list or tiered".formatted(backend)
+			);
+		};
+	}
+
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "customer.write-behind.enabled", havingValue = "true")
+	public WriteBehindCustomerDao writeBehindCustomerDao(
+			@Value("${customer.dao.backend:jdbc}") String backend,
+			@Qualifier("jdbc") CustomerJDBCDataAccessService jdbc,
+			PlatformTransactionManager transactionManager,
+			@Value("${customer.write-behind.journal-directory:customer-journal}") Path journalDirectory,
+			@Value("${customer.write-behind.flush-interval:200ms}") Duration flushInterval,
+			@Value("${customer.write-behind.batch-size:1000}") int batchSize,
+			@Value("${customer.write-behind.max-attempts:5}") int maxAttempts,
+			MeterRegistry meterRegistry
+	) {
+		if (!backend.equals("jdbc")) {
+			throw new IllegalStateException("customer.write-behind requires customer.dao.backend=jdbc");
+		}
+		return new WriteBehindCustomerDao(
+				jdbc,
+				journalDirectory,
+				new TransactionTemplate(transactionManager),
+				flushInterval,
+				batchSize,
+				maxAttempts,
+				meterRegistry
+		);
+	}
+
+	@Bean
+	@Primary
+	public CustomerDao customerDao(
+			@Qualifier(BACKEND) CustomerDao backend,
+			ObjectProvider<WriteBehindCustomerDao> writeBehind,
+			@Value("${customer.dao.backend:jdbc}") String backendName,
+			@Value("${customer.metrics.enabled:true}") boolean metricsEnabled,
+			@Value("${customer.cache.enabled:true}") boolean cacheEnabled,
+			@Value("${customer.cache.maximum-size:10000}") long cacheMaximumSize,
+			@Value("${customer.cache.expire-after-write:5m}") Duration cacheExpireAfterWrite,
+			ObjectProvider<CustomerAggregates> aggregates,
+			ObjectProvider<CustomerEmailFilter> emailFilter,
+			MeterRegistry meterRegistry
+	) {
+		CustomerDao customerDao = backend;
+		WriteBehindCustomerDao writeBehindCustomerDao = writeBehind.getIfAvailable();
+		if (writeBehindCustomerDao != null) {
+			customerDao = writeBehindCustomerDao;
+		}
+		if (metricsEnabled) {
+			customerDao = new MeteredCustomerDao(customerDao, backendName, meterRegistry);
+		}
+		// the tiered backend's hot tier already keeps recent rows, so caching them again would only cost heap
+		if (cacheEnabled && !backendName.equals("tiered")) {
+			CachingCustomerDao cachingCustomerDao = new CachingCustomerDao(
+					customerDao,
+					cacheMaximumSize,
+					cacheExpireAfterWrite
+			);
+			CaffeineCacheMetrics.monitor(meterRegistry, cachingCustomerDao.getCustomersById(), "customer.by-id");
+			CaffeineCacheMetrics.monitor(meterRegistry, cachingCustomerDao.getCustomerIdsByEmail(), "customer.by-email");
+			customerDao = cachingCustomerDao;
+		}
+		CustomerAggregates customerAggregates = aggregates.getIfAvailable();
+		if (customerAggregates != null) {
+			// above the cache so reading the row a delete or update replaces is usually a hit
+			customerDao = new AggregatingCustomerDao(customerDao, customerAggregates);
+		}
+		CustomerEmailFilter filter = emailFilter.getIfAvailable();
+		if (filter != null) {
+			customerDao = new EmailFilteringCustomerDao(customerDao, filter);
+		}
+		return customerDao;
+	}
+}
@@ -0,0 +1,158 @@
+package com.example.demo.customer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bloom filter over every customer email, so that most lookups of an unused email skip the database.
+ * Writes through this instance are added as they happen; writes made by other instances are only
+ * picked up when the filter is rebuilt from a scan of the backend every refresh interval, so until
+ * then a "definitely absent" answer for such an email is stale. The rebuild also drops deleted emails.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.email-filter.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerEmailFilter implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CustomerEmailFilter.class);
+
+	private final CustomerDao customerDao;
+	private final TaskExecutor taskExecutor;
+	private final long expectedInsertions;
+	private final double falsePositiveProbability;
+	private final Duration refreshInterval;
+	private final ScheduledExecutorService refresher;
+	private final Timer refreshTimer;
+	private volatile BloomFilter<CharSequence> emails;
+	private volatile BloomFilter<CharSequence> rebuilding;
+	private final Counter definitelyAbsent;
+	private final Counter present;
+	private final Counter falsePositives;
+	private volatile boolean warm;
+
+	public CustomerEmailFilter(
+			@Qualifier(CustomerDataAccessConfig.BACKEND) CustomerDao customerDao,
+			TaskExecutor taskExecutor,
+			MeterRegistry meterRegistry,
+			@Value("${customer.email-filter.expected-insertions:10000000}") long expectedInsertions,
+			@Value("${customer.email-filter.false-positive-probability:0.01}") double falsePositiveProbability,
+			@Value("${customer.email-filter.refresh-interval:10m}") Duration refreshInterval
+	) {
+		this.customerDao = customerDao;
+		this.taskExecutor = taskExecutor;
+		this.expectedInsertions = expectedInsertions;
+		this.falsePositiveProbability = falsePositiveProbability;
+		this.refreshInterval = refreshInterval;
+		this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "customer-email-filter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.refreshTimer = meterRegistry.timer("customer.email.filter.refresh");
+		this.emails = newFilter();
+		this.definitelyAbsent = meterRegistry.counter("customer.email.filter", "result", "absent");
+		this.present = meterRegistry.counter("customer.email.filter", "result", "present");
+		this.falsePositives = meterRegistry.counter("customer.email.filter", "result", "false_positive");
+		Gauge.builder("customer.email.filter.expected.fpp", this, filter -> filter.emails.expectedFpp())
+				.register(meterRegistry);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUpInBackground() {
+		taskExecutor.execute(this::refresh);
+		refresher.scheduleWithFixedDelay(
+				this::refreshQuietly,
+				refreshInterval.toMillis(),
+				refreshInterval.toMillis(),
+				TimeUnit.MILLISECONDS
+		);
+	}
+
+	/**
+	 * Rebuilds the filter from a scan of the backend and swaps it in.
+	 */
+	void refresh() {
+		BloomFilter<CharSequence> fresh = newFilter();
+		// emails added through add() while scanning go into both filters; one added just before the scan
+		// whose row commits after the scan began is missed until the next refresh, like a remote write
+		rebuilding = fresh;
+		try {
+			refreshTimer.record(() -> customerDao.forEachCustomer(customer -> fresh.put(customer.email())));
+			emails = fresh;
+		} finally {
+			rebuilding = null;
+		}
+		warm = true;
+	}
+
+	public boolean isWarm() {
+		return warm;
+	}
+
+	public boolean mightContain(String email) {
+		if (!warm || emails.mightContain(email)) {
+			return true;
+		}
+		definitelyAbsent.increment();
+		return false;
+	}
+
+	public void add(String email) {
+		// read in the reverse order refresh() writes them, so the swap itself cannot drop the email
+		BloomFilter<CharSequence> next = rebuilding;
+		emails.put(email);
+		if (next != null) {
+			next.put(email);
+		}
+	}
+
+	public void recordLookup(boolean exists) {
+		if (!warm) {
+			return;
+		}
+		if (exists) {
+			present.increment();
+		} else {
+			falsePositives.increment();
+		}
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		refresher.shutdownNow();
+		refresher.awaitTermination(30, TimeUnit.SECONDS);
+	}
+
+	private void refreshQuietly() {
+		try {
+			refresh();
+		} catch (RuntimeException e) {
+			LOGGER.error("Customer email filter refresh failed, retrying on the next run", e);
+		}
+	}
+
+	private BloomFilter<CharSequence> newFilter() {
+		return BloomFilter.create(
+				Funnels.stringFunnel(StandardCharsets.UTF_8),
+				expectedInsertions,
+				falsePositiveProbability
+		);
+	}
+}
@@ -1,24 +1,41 @@
 package com.example.demo.customer;
 
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository("jdbc")
 public class CustomerJDBCDataAccessService implements CustomerDao {
 	private final JdbcTemplate jdbcTemplate;
 	private final CustomerRowMapper customerRowMapper;
+	private final int exportFetchSize;
+	private final int batchChunkSize;
 
-	public CustomerJDBCDataAccessService(JdbcTemplate jdbcTemplate, CustomerRowMapper customerRowMapper) {
+	public CustomerJDBCDataAccessService(
+			JdbcTemplate jdbcTemplate,
+			CustomerRowMapper customerRowMapper,
+			@Value("${customer.export.fetch-size:1000}") int exportFetchSize,
+			@Value("${customer.batch.chunk-size:1000}") int batchChunkSize
+	) {
 		this.jdbcTemplate = jdbcTemplate;
 		this.customerRowMapper = customerRowMapper;
+		this.exportFetchSize = exportFetchSize;
+		this.batchChunkSize = batchChunkSize;
 	}
 
 	@Override
 	public List<Customer> selectAllCustomers() {
 		var sql = """
-							SELECT id, name, email, age
+							SELECT id, name, email, age, version
 							FROM customer
 				""";
 
@@ -26,10 +43,108 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
 	}
 
 	@Override
-	public Optional<Customer> selectCustomerById(Long id) {
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
+							WHERE id > ?
+							ORDER BY id
+							LIMIT ?
+				""";
+
+		return jdbcTemplate.query(sql, customerRowMapper, afterId == null ? 0L : afterId, limit);
+	}
+
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		List<Object> args = new ArrayList<>();
+		String filter = filterOf(search, args);
+		String direction = search.descending() ? "DESC" : "ASC";
+		String orderBy = switch (search.sort()) {
+			case ID -> "id " + direction;
+			case NAME -> "lower(name) %1$s, id %1$s".formatted(direction);
+			case AGE -> "age %1$s, id %1$s".formatted(direction);
+		};
+
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
+							WHERE %s
+							ORDER BY %s
+							LIMIT ? OFFSET ?
+				""".formatted(filter, orderBy);
+
+		args.add(search.limit());
+		args.add(search.offset());
+		return jdbcTemplate.query(sql, customerRowMapper, args.toArray());
+	}
+
+	private static String filterOf(CustomerSearch search, List<Object> args) {
+		// each filter is written as the expression its index in V3 covers
+		List<String> conditions = new ArrayList<>();
+		if(search.namePrefix() != null){
+			conditions.add("lower(name) LIKE ?");
+			args.add(search.namePrefixPattern());
+		}
+		if(search.emailDomain() != null){
+			conditions.add("lower(split_part(email, '@', 2)) = ?");
+			args.add(search.emailDomain());
+		}
+		if(search.minAge() != null){
+			conditions.add("age >= ?");
+			args.add(search.minAge());
+		}
+		if(search.maxAge() != null){
+			conditions.add("age <= ?");
+			args.add(search.maxAge());
+		}
+		return conditions.isEmpty() ? "TRUE" : String.join(" AND ", conditions);
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		// <% is answered by the trigram indexes in V4, using pg_trgm.word_similarity_threshold
+		var sql = """
+							SELECT id, name, email, age, version,
+								GREATEST(word_similarity(?, lower(name)), word_similarity(?, lower(email))) AS similarity
+							FROM customer
+							WHERE ? <% lower(name) OR ? <% lower(email)
+							ORDER BY similarity DESC, id
+							LIMIT ?
+				""";
+
+		return jdbcTemplate.query(
+				sql,
+				(rs, rowNum) -> new CustomerMatch(customerRowMapper.mapRow(rs, rowNum), rs.getDouble("similarity")),
+				query, query, query, query, limit
+		);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachCustomer(Consumer<CustomerView> action) {
 		var sql = """
 							SELECT id, name, email, age
 							FROM customer
+							ORDER BY id
+				""";
+
+		// PostgreSQL only honours the fetch size inside a transaction, which turns it into a server-side cursor
+		jdbcTemplate.query(
+				connection -> {
+					PreparedStatement statement = connection.prepareStatement(sql);
+					statement.setFetchSize(exportFetchSize);
+					return statement;
+				},
+				(RowCallbackHandler) rs -> action.accept(customerRowMapper.mapView(rs))
+		);
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
 							WHERE id = ?
 				""";
 
@@ -39,89 +154,425 @@ public class CustomerJDBCDataAccessService implements CustomerDao {
 	}
 
 	@Override
-	public void insertCustomer(Customer customer) {
+	public Optional<Long> insertCustomer(Customer customer) {
 		var sql = """
 							INSERT INTO customer(name, email, age)
 							VALUES(?, ?, ?)
+							ON CONFLICT (email) DO NOTHING
+							RETURNING id
 				""";
-		int result = jdbcTemplate.update(sql,
-				customer.getName(),
-				customer.getEmail(),
-				customer.getAge());
 
-		System.out.println("jdbcTemplate.update= " + result);
+		return jdbcTemplate.queryForList(sql, Long.class,
+						customer.getName(),
+						customer.getEmail(),
+						customer.getAge())
+				.stream()
+				.findFirst();
 	}
 
 	@Override
-	public boolean existsPersonWithEmail(String email) {
+	@Transactional
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		// the chunks commit together, so a failure part way through leaves no customers behind
+		var sql = """
+							INSERT INTO customer(name, email, age)
+							SELECT * FROM unnest(?::text[], ?::text[], ?::int[])
+							ON CONFLICT (email) DO NOTHING
+							RETURNING id, name, email, age, version
+				""";
+
+		List<Customer> inserted = new ArrayList<>(customers.size());
+		for (int from = 0; from < customers.size(); from += batchChunkSize) {
+			List<Customer> chunk = customers.subList(from, Math.min(from + batchChunkSize, customers.size()));
+			inserted.addAll(jdbcTemplate.query(
+					connection -> {
+						PreparedStatement statement = connection.prepareStatement(sql);
+						statement.setArray(1, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getName).toArray()));
+						statement.setArray(2, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getEmail).toArray()));
+						statement.setArray(3, connection.createArrayOf(
+								"int4", chunk.stream().map(Customer::getAge).toArray()));
+						return statement;
+					},
+					customerRowMapper
+			));
+		}
+		return inserted;
+	}
+
+	public List<Long> nextCustomerIds(int count) {
+		var sql = """
+							SELECT nextval('customer_id_seq')
+							FROM generate_series(1, ?)
+				""";
+
+		return jdbcTemplate.queryForList(sql, Long.class, count);
+	}
+
+	/**
+	 * Inserts customers whose ids were allocated with {@link #nextCustomerIds}.
+	 *
+	 * @return the ids that were inserted; rows clashing on id or email are skipped
+	 */
+	public List<Long> insertCustomersWithIds(List<Customer> customers) {
+		var sql = """
+							INSERT INTO customer(id, name, email, age, version)
+							SELECT id, name, email, age, version
+							FROM unnest(?::bigint[], ?::text[], ?::text[], ?::int[], ?::bigint[])
+								AS c(id, name, email, age, version)
+							ON CONFLICT DO NOTHING
+							RETURNING id
+				""";
+
+		List<Long> inserted = new ArrayList<>(customers.size());
+		for (int from = 0; from < customers.size(); from += batchChunkSize) {
+			List<Customer> chunk = customers.subList(from, Math.min(from + batchChunkSize, customers.size()));
+			inserted.addAll(jdbcTemplate.query(
+					connection -> {
+						PreparedStatement statement = connection.prepareStatement(sql);
+						statement.setArray(1, connection.createArrayOf(
+								"int8", chunk.stream().map(Customer::getId).toArray()));
+						statement.setArray(2, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getName).toArray()));
+						statement.setArray(3, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getEmail).toArray()));
+						statement.setArray(4, connection.createArrayOf(
+								"int4", chunk.stream().map(Customer::getAge).toArray()));
+						statement.setArray(5, connection.createArrayOf(
+								"int8", chunk.stream().map(Customer::getVersion).toArray()));
+						return statement;
+					},
+					(rs, rowNum) -> rs.getLong("id")
+			));
+		}
+		return inserted;
+	}
+
+	/**
+	 * Replays partial updates that were already accepted, in one statement per chunk; null fields keep
+	 * their current value and the row is left at the version each update carries.
+	 */
+	public void applyUpdates(List<Customer> updates) {
 		var sql = """
-							SELECT count(*)
+							UPDATE customer AS c
+							SET name = COALESCE(u.name, c.name),
+								email = COALESCE(u.email, c.email),
+								age = COALESCE(u.age, c.age),
+								version = u.version
+							FROM unnest(?::bigint[], ?::text[], ?::text[], ?::int[], ?::bigint[])
+								AS u(id, name, email, age, version)
+							WHERE c.id = u.id
+				""";
+
+		for (int from = 0; from < updates.size(); from += batchChunkSize) {
+			List<Customer> chunk = updates.subList(from, Math.min(from + batchChunkSize, updates.size()));
+			jdbcTemplate.update(connection -> {
+				PreparedStatement statement = connection.prepareStatement(sql);
+				statement.setArray(1, connection.createArrayOf(
+						"int8", chunk.stream().map(Customer::getId).toArray()));
+				statement.setArray(2, connection.createArrayOf(
+						"text", chunk.stream().map(Customer::getName).toArray()));
+				statement.setArray(3, connection.createArrayOf(
+						"text", chunk.stream().map(Customer::getEmail).toArray()));
+				statement.setArray(4, connection.createArrayOf(
+						"int4", chunk.stream().map(Customer::getAge).toArray()));
+				statement.setArray(5, connection.createArrayOf(
+						"int8", chunk.stream().map(Customer::getVersion).toArray()));
+				return statement;
+			});
+		}
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		// the outer SELECT reads the snapshot from before the UPDATE, so it still sees every row that existed;
+		// rows that already hold the values are left alone, as updateCustomer does, and still count as updated
+		var sql = """
+							WITH u AS (
+								SELECT *
+								FROM unnest(?::bigint[], ?::text[], ?::text[], ?::int[]) AS u(id, name, email, age)
+							), updated AS (
+								UPDATE customer AS c
+								SET name = COALESCE(u.name, c.name),
+									email = COALESCE(u.email, c.email),
+									age = COALESCE(u.age, c.age),
+									version = c.version + 1
+								FROM u
+								WHERE c.id = u.id
+									AND (COALESCE(u.name, c.name), COALESCE(u.email, c.email), COALESCE(u.age, c.age))
+										IS DISTINCT FROM (c.name, c.email, c.age)
+									AND NOT EXISTS(
+										SELECT 1
+										FROM customer AS o
+										WHERE o.email = u.email AND o.id <> u.id
+									)
+								RETURNING c.id
+							)
+							SELECT u.id,
+								CASE
+									WHEN updated.id IS NOT NULL THEN 'UPDATED'
+									WHEN c.id IS NULL THEN 'NOT_FOUND'
+									WHEN EXISTS(
+										SELECT 1
+										FROM customer AS o
+										WHERE o.email = u.email AND o.id <> u.id
+									) THEN 'DUPLICATE'
+									ELSE 'UPDATED'
+								END AS status
+							FROM u
+							LEFT JOIN updated ON updated.id = u.id
+							LEFT JOIN customer AS c ON c.id = u.id
+				""";
+
+		List<CustomerBulkResult> results = new ArrayList<>(updates.size());
+		for (int from = 0; from < updates.size(); from += batchChunkSize) {
+			List<Customer> chunk = updates.subList(from, Math.min(from + batchChunkSize, updates.size()));
+			results.addAll(jdbcTemplate.query(
+					connection -> {
+						PreparedStatement statement = connection.prepareStatement(sql);
+						statement.setArray(1, connection.createArrayOf(
+								"int8", chunk.stream().map(Customer::getId).toArray()));
+						statement.setArray(2, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getName).toArray()));
+						statement.setArray(3, connection.createArrayOf(
+								"text", chunk.stream().map(Customer::getEmail).toArray()));
+						statement.setArray(4, connection.createArrayOf(
+								"int4", chunk.stream().map(Customer::getAge).toArray()));
+						return statement;
+					},
+					(rs, rowNum) -> new CustomerBulkResult(
+							rs.getLong("id"),
+							CustomerBulkResult.Status.valueOf(rs.getString("status"))
+					)
+			));
+		}
+		return results;
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		var sql = """
+							DELETE
 							FROM customer
-							WHERE email = ?
+							WHERE id = ANY(?::bigint[])
+							RETURNING id, name, email, age, version
 				""";
 
-		Integer count = jdbcTemplate.queryForObject(sql, Integer.class, email);
-		return count != null && count > 0;
+		List<Customer> deleted = new ArrayList<>(customerIds.size());
+		for (int from = 0; from < customerIds.size(); from += batchChunkSize) {
+			List<Long> chunk = customerIds.subList(from, Math.min(from + batchChunkSize, customerIds.size()));
+			deleted.addAll(jdbcTemplate.query(
+					connection -> {
+						PreparedStatement statement = connection.prepareStatement(sql);
+						statement.setArray(1, connection.createArrayOf("int8", chunk.toArray()));
+						return statement;
+					},
+					customerRowMapper
+			));
+		}
+		return deleted;
 	}
 
 	@Override
-	public void deleteCustomer(Customer customer) {
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		// the filter is checked again on the row being deleted, in case it changed after the subquery saw it
+		List<Object> args = new ArrayList<>();
+		String condition = filterOf(filter, args);
+		args.addAll(List.copyOf(args));
+		args.add(filter.limit());
+		var sql = """
+							DELETE
+							FROM customer
+							WHERE %1$s AND id IN (
+								SELECT id
+								FROM customer
+								WHERE %1$s
+								ORDER BY id
+								LIMIT ?
+							)
+							RETURNING id, name, email, age, version
+				""".formatted(condition);
 
+		return jdbcTemplate.query(sql, customerRowMapper, args.toArray());
 	}
 
 	@Override
-	public boolean existsPersonWithId(Long id) {
+	public Optional<Long> selectCustomerVersion(Long id) {
 		var sql = """
-							SELECT count(*)
+							SELECT version
 							FROM customer
 							WHERE id = ?
 				""";
 
-		Integer count = jdbcTemplate.queryForObject(sql, Integer.class, id);
-		return count != null && count > 0;
+		return jdbcTemplate.queryForList(sql, Long.class, id)
+				.stream()
+				.findFirst();
+	}
+
+	@Override
+	public CustomerCounts countCustomers() {
+		// one scan for both groupings; age is never null, so a row without one is a domain count
+		var sql = """
+							SELECT age, lower(split_part(email, '@', 2)) AS domain, count(*) AS customers
+							FROM customer
+							GROUP BY GROUPING SETS ((age), (lower(split_part(email, '@', 2))))
+				""";
+
+		Map<Integer, Long> customersByAge = new HashMap<>();
+		Map<String, Long> customersByEmailDomain = new HashMap<>();
+		jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+			int age = rs.getInt("age");
+			if (rs.wasNull()) {
+				customersByEmailDomain.put(rs.getString("domain"), rs.getLong("customers"));
+			} else {
+				customersByAge.put(age, rs.getLong("customers"));
+			}
+		});
+		return new CustomerCounts(customersByAge, customersByEmailDomain);
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		var sql = """
+							SELECT EXISTS(
+								SELECT 1
+								FROM customer
+								WHERE email = ?
+							)
+				""";
+
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, email));
 	}
 
 	@Override
-	public void deleteCustomerById(Long customerId) {
+	public int deleteCustomer(Customer customer) {
+		if(customer.getVersion() == null){
+			return deleteCustomerById(customer.getId());
+		}
+		var sql = """
+							DELETE
+							FROM customer
+							WHERE id = ? AND version = ?
+				""";
+
+		return jdbcTemplate.update(sql, customer.getId(), customer.getVersion());
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long id) {
+		var sql = """
+							SELECT EXISTS(
+								SELECT 1
+								FROM customer
+								WHERE id = ?
+							)
+				""";
+
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, id));
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
 		var sql = """
     			DELETE
     			FROM customer
     			WHERE id = ?
 				""";
 
-		int result = jdbcTemplate.update(sql, customerId);
-		System.out.println("deleteCustomerById result = " + result);
+		return jdbcTemplate.update(sql, customerId);
 	}
 
 	@Override
-	public void updateCustomer(Customer update) {
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		var sql = """
+							DELETE
+							FROM customer
+							WHERE id = ?%s
+							RETURNING id, name, email, age, version
+				""".formatted(customer.getVersion() == null ? "" : " AND version = ?");
+
+		Object[] args = customer.getVersion() == null
+				? new Object[]{customer.getId()}
+				: new Object[]{customer.getId(), customer.getVersion()};
+		return jdbcTemplate.query(sql, customerRowMapper, args)
+				.stream()
+				.findFirst();
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		return updateCustomerReturningChange(update).map(CustomerChange::current);
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		List<String> assignments = new ArrayList<>();
+		List<String> changes = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
 		if(update.getName() != null){
-			String sql = "UPDATE customer SET name = ? WHERE id = ?";
-			int result = jdbcTemplate.update(
-					sql,
-					update.getName(),
-					update.getId()
-			);
-			System.out.println("update customer name result = " + result);
+			assignments.add("name = ?");
+			changes.add("c.name IS DISTINCT FROM ?");
+			values.add(update.getName());
+		}
+		if(update.getEmail() != null){
+			assignments.add("email = ?");
+			changes.add("c.email IS DISTINCT FROM ?");
+			values.add(update.getEmail());
 		}
 		if(update.getAge() != null){
-			String sql = "UPDATE customer SET age = ? WHERE id = ?";
-			int result = jdbcTemplate.update(
-					sql,
-					update.getAge(),
-					update.getId()
-			);
-			System.out.println("update customer age result = " + result);
+			assignments.add("age = ?");
+			changes.add("c.age IS DISTINCT FROM ?");
+			values.add(update.getAge());
 		}
-		if(update.getEmail() != null){
-			String sql = "UPDATE customer SET email = ? WHERE id = ?";
-			int result = jdbcTemplate.update(
-					sql,
-					update.getEmail(),
-					update.getId()
-			);
-			System.out.println("update customer email result = " + result);
+		if(assignments.isEmpty()){
+			return Optional.empty();
 		}
 
+		// p locks the row before reading it, so it is exactly the row the UPDATE replaces
+		var sql = """
+							UPDATE customer AS c
+							SET %s, version = c.version + 1
+							FROM (
+								SELECT id, name, email, age, version
+								FROM customer
+								WHERE id = ?
+								FOR UPDATE
+							) AS p
+							WHERE c.id = p.id AND (%s)%s
+							RETURNING c.id, c.name, c.email, c.age, c.version,
+								p.name AS previous_name,
+								p.email AS previous_email,
+								p.age AS previous_age,
+								p.version AS previous_version
+				""".formatted(
+				String.join(", ", assignments),
+				String.join(" OR ", changes),
+				update.getVersion() == null ? "" : " AND c.version = ?"
+		);
+
+		List<Object> args = new ArrayList<>(values);
+		args.add(update.getId());
+		args.addAll(values);
+		if(update.getVersion() != null){
+			args.add(update.getVersion());
+		}
+
+		return jdbcTemplate.query(
+						sql,
+						(rs, rowNum) -> new CustomerChange(
+								new Customer(
+										rs.getLong(CustomerRowMapper.ID),
+										rs.getString("previous_name"),
+										rs.getString("previous_email"),
+										rs.getInt("previous_age"),
+										rs.getLong("previous_version")
+								),
+								customerRowMapper.mapRow(rs, rowNum)
+						),
+						args.toArray()
+				)
+				.stream()
+				.findFirst();
 	}
 }
@@ -1,15 +1,47 @@
 package com.example.demo.customer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.google.common.collect.Lists;
+
+import jakarta.persistence.EntityManager;
 
 @Repository("jpa")
 public class CustomerJPADataAccessService implements CustomerDao {
+	// Hibernate binds every IN list element separately and PostgreSQL allows at most 32767 parameters
+	private static final int IN_LIST_CHUNK_SIZE = 1000;
+	private static final int INSERT_CHUNK_SIZE = 1000;
+	private static final String FOR_EACH_CUSTOMER =
+			"SELECT new com.example.demo.customer.CustomerView(c.id, c.name, c.email, c.age) FROM Customer c ORDER BY c.id";
+
 	private final CustomerRepository customerRepository;
+	private final EntityManager entityManager;
+	private final int exportFetchSize;
 
-	public CustomerJPADataAccessService(CustomerRepository customerRepository) {
+	public CustomerJPADataAccessService(
+			CustomerRepository customerRepository,
+			EntityManager entityManager,
+			@Value("${customer.export.fetch-size:1000}") int exportFetchSize
+	) {
 		this.customerRepository = customerRepository;
+		this.entityManager = entityManager;
+		this.exportFetchSize = exportFetchSize;
 	}
 
 	@Override
@@ -17,14 +49,109 @@ public class CustomerJPADataAccessService implements CustomerDao {
 		return customerRepository.findAll();
 	}
 
+	@Override
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		return customerRepository.findByIdGreaterThan(
+				afterId == null ? 0L : afterId,
+				PageRequest.of(0, limit, Sort.by("id"))
+		);
+	}
+
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		Sort.Direction direction = search.descending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+		Sort sort = switch (search.sort()) {
+			case ID -> Sort.by(direction, "id");
+			case NAME -> Sort.by(new Sort.Order(direction, "name").ignoreCase(), new Sort.Order(direction, "id"));
+			case AGE -> Sort.by(direction, "age", "id");
+		};
+		return customerRepository.findBy(
+				CustomerSpecifications.matching(search),
+				query -> query.sortBy(sort)
+						.limit(search.limit())
+						.scroll(ScrollPosition.offset(search.offset()))
+						.getContent()
+		);
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		return customerRepository.findSimilar(query, limit)
+				.stream()
+				.map(similar -> new CustomerMatch(
+						new Customer(
+								similar.getId(),
+								similar.getName(),
+								similar.getEmail(),
+								similar.getAge(),
+								similar.getVersion()
+						),
+						similar.getSimilarity()
+				))
+				.toList();
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachCustomer(Consumer<CustomerView> action) {
+		// a constructor expression yields plain records, so nothing is added to the persistence context
+		try (Stream<CustomerView> customers = entityManager
+				.createQuery(FOR_EACH_CUSTOMER, CustomerView.class)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+				.getResultStream()) {
+			customers.forEach(action);
+		}
+	}
+
 	@Override
 	public Optional<Customer> selectCustomerById(Long id) {
 		return customerRepository.findById(id);
 	}
 
 	@Override
-	public void insertCustomer(Customer customer) {
-		customerRepository.save(customer);
+	public Optional<Long> selectCustomerVersion(Long id) {
+		return customerRepository.findVersionById(id);
+	}
+
+	@Override
+	public CustomerCounts countCustomers() {
+		Map<Integer, Long> customersByAge = new HashMap<>();
+		Map<String, Long> customersByEmailDomain = new HashMap<>();
+		for (CustomerRepository.Count count : customerRepository.countByAgeAndEmailDomain()) {
+			if (count.getAge() == null) {
+				customersByEmailDomain.put(count.getDomain(), count.getCustomers());
+			} else {
+				customersByAge.put(count.getAge(), count.getCustomers());
+			}
+		}
+		return new CustomerCounts(customersByAge, customersByEmailDomain);
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		try {
+			return Optional.of(customerRepository.save(customer).getId());
+		} catch (DataIntegrityViolationException e) {
+			if(customerRepository.existsCustomerByEmail(customer.getEmail())){
+				return Optional.empty();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	@Transactional
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		// saveAll would fetch every id from the allocationSize = 1 sequence before batching the inserts
+		List<Customer> inserted = new ArrayList<>(customers.size());
+		for (List<Customer> chunk : Lists.partition(customers, INSERT_CHUNK_SIZE)) {
+			inserted.addAll(customerRepository.insertAllReturning(
+					chunk.stream().map(Customer::getName).toArray(String[]::new),
+					chunk.stream().map(Customer::getEmail).toArray(String[]::new),
+					chunk.stream().map(Customer::getAge).toArray(Integer[]::new)
+			));
+		}
+		return inserted;
 	}
 
 	@Override
@@ -33,8 +160,12 @@ public class CustomerJPADataAccessService implements CustomerDao {
 	}
 
 	@Override
-	public void deleteCustomer(Customer customer) {
-		customerRepository.delete(customer);
+	@Transactional
+	public int deleteCustomer(Customer customer) {
+		if(customer.getVersion() == null){
+			return customerRepository.deleteCustomerById(customer.getId());
+		}
+		return customerRepository.deleteCustomerByIdAndVersion(customer.getId(), customer.getVersion());
 	}
 
 	@Override
@@ -43,13 +174,90 @@ public class CustomerJPADataAccessService implements CustomerDao {
 	}
 
 	@Override
-	public void deleteCustomerById(Long customerId) {
-		customerRepository.deleteById(customerId);
+	@Transactional
+	public int deleteCustomerById(Long customerId) {
+		return customerRepository.deleteCustomerById(customerId);
+	}
+
+	@Override
+	@Transactional
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		List<Customer> deleted = new ArrayList<>(customerIds.size());
+		for (List<Long> chunk : Lists.partition(customerIds, IN_LIST_CHUNK_SIZE)) {
+			deleted.addAll(customerRepository.deleteAllByIdReturning(chunk));
+		}
+		return deleted;
+	}
+
+	@Override
+	@Transactional
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		List<Long> matching = customerRepository.findBy(
+				CustomerSpecifications.matching(filter),
+				query -> query.sortBy(Sort.by("id")).limit(filter.limit()).all()
+		).stream().map(Customer::getId).toList();
+		return deleteCustomersById(matching);
+	}
+
+	@Override
+	@Transactional
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		Map<Long, Customer> customers = new HashMap<>();
+		for (List<Long> chunk : Lists.partition(updates.stream().map(Customer::getId).toList(), IN_LIST_CHUNK_SIZE)) {
+			customerRepository.findAllById(chunk).forEach(customer -> customers.put(customer.getId(), customer));
+		}
+		Set<String> takenEmails = new HashSet<>();
+		List<String> emails = updates.stream().map(Customer::getEmail).filter(Objects::nonNull).toList();
+		for (List<String> chunk : Lists.partition(emails, IN_LIST_CHUNK_SIZE)) {
+			takenEmails.addAll(customerRepository.findExistingEmails(chunk));
+		}
+
+		// changed entities are written by dirty checking when the transaction commits
+		List<CustomerBulkResult> results = new ArrayList<>(updates.size());
+		for (Customer update : updates) {
+			Customer customer = customers.get(update.getId());
+			CustomerBulkResult.Status status;
+			if (customer == null) {
+				status = CustomerBulkResult.Status.NOT_FOUND;
+			} else if (update.getEmail() != null
+					&& !update.getEmail().equals(customer.getEmail())
+					&& takenEmails.contains(update.getEmail())) {
+				status = CustomerBulkResult.Status.DUPLICATE;
+			} else {
+				customer.applyUpdate(update);
+				status = CustomerBulkResult.Status.UPDATED;
+			}
+			results.add(new CustomerBulkResult(update.getId(), status));
+		}
+		return results;
+	}
+
+	@Override
+	@Transactional
+	public Optional<Customer> updateCustomer(Customer update) {
+		return updateCustomerReturningChange(update).map(CustomerChange::current);
 	}
 
 	@Override
-	public void updateCustomer(Customer update) {
-		customerRepository.save(update);
+	@Transactional
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		Optional<Customer> customer = customerRepository.findById(update.getId());
+		if(customer.isEmpty()
+				|| update.getVersion() != null && !update.getVersion().equals(customer.get().getVersion())){
+			return Optional.empty();
+		}
+		Customer previous = new Customer(
+				customer.get().getId(),
+				customer.get().getName(),
+				customer.get().getEmail(),
+				customer.get().getAge(),
+				customer.get().getVersion()
+		);
+		if(!customer.get().applyUpdate(update)){
+			return Optional.empty();
+		}
+		// @Version bumps the version when the transaction commits and fails it if another one got there first
+		return Optional.of(new CustomerChange(previous, customerRepository.save(customer.get())));
 	}
 
 }
@@ -0,0 +1,133 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Hand-written serializers for the customer types on the hot HTTP paths. Spring Boot registers every
+ * Jackson module bean with the shared {@code ObjectMapper}, so the message converters pick these up
+ * instead of introspecting the bean or record on each call. Output and accepted input match the
+ * reflective defaults: unknown properties are skipped and scalars are coerced the same way.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.json.custom-serializers.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerJsonModule extends SimpleModule {
+
+	public CustomerJsonModule() {
+		super("CustomerJsonModule");
+		addSerializer(Customer.class, new CustomerSerializer());
+		addSerializer(CustomerView.class, new CustomerViewSerializer());
+		addDeserializer(
+				CustomerRegistrationRequest.class,
+				new NameEmailAgeDeserializer<>(CustomerRegistrationRequest.class, CustomerRegistrationRequest::new)
+		);
+		addDeserializer(
+				CustomerUpdateRequest.class,
+				new NameEmailAgeDeserializer<>(CustomerUpdateRequest.class, CustomerUpdateRequest::new)
+		);
+	}
+
+	static final class CustomerSerializer extends StdSerializer<Customer> {
+		CustomerSerializer() {
+			super(Customer.class);
+		}
+
+		@Override
+		public void serialize(Customer customer, JsonGenerator generator, SerializerProvider provider)
+				throws IOException {
+			generator.writeStartObject(customer);
+			generator.writeFieldName("id");
+			if (customer.getId() == null) {
+				generator.writeNull();
+			} else {
+				generator.writeNumber(customer.getId());
+			}
+			generator.writeStringField("name", customer.getName());
+			generator.writeStringField("email", customer.getEmail());
+			generator.writeFieldName("age");
+			if (customer.getAge() == null) {
+				generator.writeNull();
+			} else {
+				generator.writeNumber(customer.getAge());
+			}
+			generator.writeEndObject();
+		}
+	}
+
+	static final class CustomerViewSerializer extends StdSerializer<CustomerView> {
+		CustomerViewSerializer() {
+			super(CustomerView.class);
+		}
+
+		@Override
+		public void serialize(CustomerView customer, JsonGenerator generator, SerializerProvider provider)
+				throws IOException {
+			CustomerViewWriter.write(generator, customer);
+		}
+	}
+
+	@FunctionalInterface
+	interface NameEmailAgeFactory<T> {
+		T create(String name, String email, Integer age);
+	}
+
+	/**
+	 * Reads the {@code name}, {@code email} and {@code age} shared by the registration and update requests.
+	 */
+	static final class NameEmailAgeDeserializer<T> extends StdDeserializer<T> {
+		private final NameEmailAgeFactory<T> factory;
+
+		NameEmailAgeDeserializer(Class<T> type, NameEmailAgeFactory<T> factory) {
+			super(type);
+			this.factory = factory;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+			JsonToken token = parser.currentToken();
+			if (token == JsonToken.START_OBJECT) {
+				token = parser.nextToken();
+			} else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+				return (T) context.handleUnexpectedToken(handledType(), parser);
+			}
+			String name = null;
+			String email = null;
+			Integer age = null;
+			for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				switch (field) {
+					case "name" -> name = stringOf(parser, context, value);
+					case "email" -> email = stringOf(parser, context, value);
+					case "age" -> age = _parseInteger(parser, context, Integer.class);
+					default -> handleUnknownProperty(parser, context, handledType(), field);
+				}
+			}
+			return factory.create(name, email, age);
+		}
+
+		private String stringOf(JsonParser parser, DeserializationContext context, JsonToken value)
+				throws IOException {
+			if (value == JsonToken.VALUE_STRING) {
+				return parser.getText();
+			}
+			if (value == JsonToken.VALUE_NULL) {
+				return null;
+			}
+			if (value.isScalarValue()) {
+				return parser.getValueAsString();
+			}
+			return (String) context.handleUnexpectedToken(String.class, parser);
+		}
+	}
+}
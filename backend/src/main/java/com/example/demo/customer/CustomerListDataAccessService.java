@@ -1,67 +1,414 @@
 package com.example.demo.customer;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 @Repository("list")
 public class CustomerListDataAccessService implements CustomerDao {
-	private static final List<Customer> customers;
+	private static final int LOCK_STRIPES = 64;
+	// pg_trgm's default word_similarity_threshold
+	private static final double SIMILARITY_THRESHOLD = 0.6;
 
-	static {
-		customers = new ArrayList<>();
-		Customer alex = new Customer(1L, "Alex", "alex@gmail.com", 21);
-		customers.add(alex);
-		Customer jamila = new Customer(2L, "Jamila", "jamila@gmail.com", 19);
-		customers.add(jamila);
+	private final ConcurrentMap<Long, Customer> customersById = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Long> customerIdsByEmail = new ConcurrentHashMap<>();
+	private final NavigableSet<Long> customerIds = new ConcurrentSkipListSet<>();
+	// search indexes, kept in step with customersById under the row's stripe lock
+	private final NavigableSet<NameKey> idsByName = new ConcurrentSkipListSet<>();
+	private final ConcurrentMap<String, Set<Long>> idsByEmailDomain = new ConcurrentHashMap<>();
+	private final NavigableSet<AgeKey> idsByAge = new ConcurrentSkipListSet<>();
+	private final TrigramIndex nameTrigrams = new TrigramIndex();
+	private final TrigramIndex emailTrigrams = new TrigramIndex();
+	private final AtomicLong idSequence = new AtomicLong();
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+	public CustomerListDataAccessService() {
+		this(true);
+	}
+
+	CustomerListDataAccessService(boolean seed) {
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		if (seed) {
+			insertCustomer(new Customer("Alex", "alex@gmail.com", 21));
+			insertCustomer(new Customer("Jamila", "jamila@gmail.com", 19));
+		}
 	}
 
 	@Override
 	public List<Customer> selectAllCustomers() {
+		List<Customer> customers = new ArrayList<>(customersById.size());
+		for (Long id : customerIds) {
+			Customer customer = customersById.get(id);
+			if (customer != null) {
+				customers.add(copyOf(customer));
+			}
+		}
+		return customers;
+	}
+
+	@Override
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		List<Customer> customers = new ArrayList<>(limit);
+		for (Long id : customerIds.tailSet(afterId == null ? 0L : afterId, false)) {
+			if (customers.size() == limit) {
+				break;
+			}
+			Customer customer = customersById.get(id);
+			if (customer != null) {
+				customers.add(copyOf(customer));
+			}
+		}
 		return customers;
 	}
 
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		// scan the narrowest index that applies; rows are re-checked since an index may briefly lag the row
+		Collection<Long> candidates;
+		boolean sorted = false;
+		if (search.namePrefix() != null) {
+			candidates = idsByName.subSet(
+					new NameKey(search.namePrefix(), Long.MIN_VALUE), true,
+					new NameKey(search.namePrefix() + Character.MAX_VALUE, Long.MAX_VALUE), true
+			).stream().map(NameKey::id).toList();
+		} else if (search.emailDomain() != null) {
+			candidates = idsByEmailDomain.getOrDefault(search.emailDomain(), Set.of());
+		} else if (search.minAge() != null || search.maxAge() != null || search.sort() == CustomerSearch.Sort.AGE) {
+			NavigableSet<AgeKey> ages = idsByAge.subSet(
+					new AgeKey(search.minAge() == null ? Integer.MIN_VALUE : search.minAge(), Long.MIN_VALUE), true,
+					new AgeKey(search.maxAge() == null ? Integer.MAX_VALUE : search.maxAge(), Long.MAX_VALUE), true
+			);
+			sorted = search.sort() == CustomerSearch.Sort.AGE;
+			candidates = (search.descending() ? ages.descendingSet() : ages).stream().map(AgeKey::id).toList();
+		} else {
+			sorted = search.sort() == CustomerSearch.Sort.ID;
+			candidates = search.descending() ? customerIds.descendingSet() : customerIds;
+		}
+
+		// when the index is already in result order the scan stops at the end of the page
+		long wanted = (long) search.offset() + search.limit();
+		List<Customer> matches = new ArrayList<>();
+		for (Long id : candidates) {
+			if (sorted && matches.size() == wanted) {
+				break;
+			}
+			Customer customer = customersById.get(id);
+			if (customer != null && matches(search, customer)) {
+				matches.add(customer);
+			}
+		}
+		if (!sorted) {
+			matches.sort(orderOf(search));
+		}
+		return matches.stream()
+				.skip(search.offset())
+				.limit(search.limit())
+				.map(CustomerListDataAccessService::copyOf)
+				.toList();
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		long[] trigrams = TrigramIndex.trigrams(query);
+		int minimum = Math.max(1, (int) Math.ceil(trigrams.length * SIMILARITY_THRESHOLD));
+		Set<Long> candidates = new HashSet<>(nameTrigrams.countShared(trigrams, minimum).keySet());
+		candidates.addAll(emailTrigrams.countShared(trigrams, minimum).keySet());
+
+		List<CustomerMatch> matches = new ArrayList<>();
+		for (Long id : candidates) {
+			Customer customer = customersById.get(id);
+			if (customer == null) {
+				continue;
+			}
+			double similarity = Math.max(
+					TrigramIndex.similarity(trigrams, customer.getName()),
+					TrigramIndex.similarity(trigrams, customer.getEmail())
+			);
+			if (similarity >= SIMILARITY_THRESHOLD) {
+				matches.add(new CustomerMatch(copyOf(customer), similarity));
+			}
+		}
+		return matches.stream()
+				.sorted(Comparator.comparingDouble(CustomerMatch::similarity).reversed()
+						.thenComparing(match -> match.customer().getId()))
+				.limit(limit)
+				.toList();
+	}
+
+	@Override
+	public void forEachCustomer(Consumer<CustomerView> action) {
+		for (Long id : customerIds) {
+			Customer customer = customersById.get(id);
+			if (customer != null) {
+				action.accept(CustomerView.of(customer));
+			}
+		}
+	}
+
 	@Override
 	public Optional<Customer> selectCustomerById(Long id) {
-		return customers.stream()
-				.filter(c -> c.getId().equals(id))
-				.findFirst();
+		return Optional.ofNullable(customersById.get(id)).map(CustomerListDataAccessService::copyOf);
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		return Optional.ofNullable(customersById.get(id)).map(Customer::getVersion);
 	}
 
 	@Override
-	public void insertCustomer(Customer customer) {
-		customer.setId(customers.size() + 1L);
-		customers.add(customer);
+	public CustomerCounts countCustomers() {
+		Map<Integer, Long> customersByAge = new HashMap<>();
+		Map<String, Long> customersByEmailDomain = new HashMap<>();
+		for (Customer customer : customersById.values()) {
+			customersByAge.merge(customer.getAge(), 1L, Long::sum);
+			customersByEmailDomain.merge(Customer.emailDomainOf(customer.getEmail()), 1L, Long::sum);
+		}
+		return new CustomerCounts(customersByAge, customersByEmailDomain);
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		long id = idSequence.incrementAndGet();
+		// the email index is the uniqueness arbiter, just like the unique constraint in the database
+		if (customerIdsByEmail.putIfAbsent(customer.getEmail(), id) != null) {
+			return Optional.empty();
+		}
+		customer.setId(id);
+		customer.setVersion(Customer.INITIAL_VERSION);
+		ReentrantLock lock = lockFor(id);
+		lock.lock();
+		try {
+			Customer stored = copyOf(customer);
+			customersById.put(id, stored);
+			index(stored);
+			customerIds.add(id);
+		} finally {
+			lock.unlock();
+		}
+		return Optional.of(id);
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		List<Customer> inserted = new ArrayList<>();
+		for (Customer customer : customers) {
+			insertCustomer(customer).ifPresent(id -> inserted.add(customer));
+		}
+		return inserted;
 	}
 
 	@Override
 	public boolean existsPersonWithEmail(String email) {
-		return customers.stream()
-				.anyMatch(c -> c.getEmail().equals(email));
+		return customerIdsByEmail.containsKey(email);
 	}
 
 	@Override
-	public void deleteCustomer(Customer customer) {
-		customers.remove(customer);
+	public int deleteCustomer(Customer customer) {
+		Long version = customer.getVersion();
+		return remove(customer.getId(), c -> version == null || version.equals(c.getVersion())) != null ? 1 : 0;
 	}
 
 	@Override
 	public boolean existsPersonWithId(Long customerId) {
-		return customers.stream()
-				.anyMatch(c -> c.getId().equals(customerId));
+		return customersById.containsKey(customerId);
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		return remove(customerId, customer -> true) != null ? 1 : 0;
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		List<Customer> deleted = new ArrayList<>();
+		for (Long id : customerIds) {
+			Customer removed = remove(id, customer -> true);
+			if (removed != null) {
+				deleted.add(removed);
+			}
+		}
+		return deleted;
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		List<Customer> deleted = new ArrayList<>();
+		for (Customer candidate : searchCustomers(new CustomerSearch(
+				filter.namePrefix(),
+				filter.emailDomain(),
+				filter.minAge(),
+				filter.maxAge(),
+				CustomerSearch.Sort.ID,
+				false,
+				0,
+				filter.limit()
+		))) {
+			// the row may have changed since the search saw it
+			Customer removed = remove(candidate.getId(), customer -> matches(filter, customer));
+			if (removed != null) {
+				deleted.add(removed);
+			}
+		}
+		return deleted;
 	}
 
 	@Override
-	public void deleteCustomerById(Long customerId) {
-		customers.stream()
-				.filter(c -> c.getId().equals(customerId))
-				.findFirst()
-				.ifPresent(customers::remove);
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		List<CustomerBulkResult> results = new ArrayList<>(updates.size());
+		for (Customer update : updates) {
+			CustomerBulkResult.Status status;
+			try {
+				status = updateCustomer(update).isPresent() || existsPersonWithId(update.getId())
+						? CustomerBulkResult.Status.UPDATED
+						: CustomerBulkResult.Status.NOT_FOUND;
+			} catch (DuplicateKeyException e) {
+				status = CustomerBulkResult.Status.DUPLICATE;
+			}
+			results.add(new CustomerBulkResult(update.getId(), status));
+		}
+		return results;
+	}
+
+	private Customer remove(Long customerId, Predicate<Customer> condition) {
+		ReentrantLock lock = lockFor(customerId);
+		lock.lock();
+		try {
+			Customer current = customersById.get(customerId);
+			if (current == null || !condition.test(current)) {
+				return null;
+			}
+			customersById.remove(customerId);
+			unindex(current);
+			customerIds.remove(customerId);
+			customerIdsByEmail.remove(current.getEmail(), customerId);
+			return copyOf(current);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	@Override
-	public void updateCustomer(Customer customer) {
-		customers.add(customer);
+	public Optional<Customer> updateCustomer(Customer update) {
+		ReentrantLock lock = lockFor(update.getId());
+		lock.lock();
+		try {
+			Customer current = customersById.get(update.getId());
+			if (current == null
+					|| update.getVersion() != null && !update.getVersion().equals(current.getVersion())) {
+				return Optional.empty();
+			}
+			Customer updated = copyOf(current);
+			if (!updated.applyUpdate(update)) {
+				return Optional.empty();
+			}
+			updated.setVersion(current.getVersion() + 1);
+			if (!updated.getEmail().equals(current.getEmail())) {
+				Long owner = customerIdsByEmail.putIfAbsent(updated.getEmail(), updated.getId());
+				if (owner != null && !owner.equals(updated.getId())) {
+					throw new DuplicateKeyException("email already taken");
+				}
+				customerIdsByEmail.remove(current.getEmail(), current.getId());
+			}
+			customersById.put(updated.getId(), updated);
+			unindex(current);
+			index(updated);
+			return Optional.of(copyOf(updated));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void index(Customer customer) {
+		idsByName.add(new NameKey(lowerCase(customer.getName()), customer.getId()));
+		idsByEmailDomain.compute(Customer.emailDomainOf(customer.getEmail()), (domain, ids) -> {
+			Set<Long> domainIds = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+			domainIds.add(customer.getId());
+			return domainIds;
+		});
+		idsByAge.add(new AgeKey(customer.getAge(), customer.getId()));
+		nameTrigrams.add(customer.getId(), customer.getName());
+		emailTrigrams.add(customer.getId(), customer.getEmail());
+	}
+
+	private void unindex(Customer customer) {
+		idsByName.remove(new NameKey(lowerCase(customer.getName()), customer.getId()));
+		idsByEmailDomain.computeIfPresent(Customer.emailDomainOf(customer.getEmail()), (domain, ids) -> {
+			ids.remove(customer.getId());
+			return ids.isEmpty() ? null : ids;
+		});
+		idsByAge.remove(new AgeKey(customer.getAge(), customer.getId()));
+		nameTrigrams.remove(customer.getId(), customer.getName());
+		emailTrigrams.remove(customer.getId(), customer.getEmail());
+	}
+
+	private static boolean matches(CustomerSearch search, Customer customer) {
+		return (search.namePrefix() == null || lowerCase(customer.getName()).startsWith(search.namePrefix()))
+				&& (search.emailDomain() == null || Customer.emailDomainOf(customer.getEmail()).equals(search.emailDomain()))
+				&& (search.minAge() == null || customer.getAge() >= search.minAge())
+				&& (search.maxAge() == null || customer.getAge() <= search.maxAge());
+	}
+
+	private static Comparator<Customer> orderOf(CustomerSearch search) {
+		Comparator<Customer> order = switch (search.sort()) {
+			case ID -> Comparator.comparing(Customer::getId);
+			// the same order as the databases' lower(name), id, so a page holds the same rows on every backend
+			case NAME -> Comparator.comparing((Customer customer) -> lowerCase(customer.getName()))
+					.thenComparing(Customer::getId);
+			case AGE -> Comparator.comparing(Customer::getAge).thenComparing(Customer::getId);
+		};
+		return search.descending() ? order.reversed() : order;
+	}
+
+	private static String lowerCase(String value) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+
+	private ReentrantLock lockFor(Long id) {
+		return locks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+	}
+
+	private static Customer copyOf(Customer customer) {
+		return new Customer(
+				customer.getId(),
+				customer.getName(),
+				customer.getEmail(),
+				customer.getAge(),
+				customer.getVersion()
+		);
+	}
+
+	private record NameKey(String name, long id) implements Comparable<NameKey> {
+		@Override
+		public int compareTo(NameKey other) {
+			int byName = name.compareTo(other.name);
+			return byName != 0 ? byName : Long.compare(id, other.id);
+		}
+	}
+
+	private record AgeKey(int age, long id) implements Comparable<AgeKey> {
+		@Override
+		public int compareTo(AgeKey other) {
+			int byAge = Integer.compare(age, other.age);
+			return byAge != 0 ? byAge : Long.compare(id, other.id);
+		}
 	}
 }
@@ -0,0 +1,7 @@
+package com.example.demo.customer;
+
+public record CustomerMatch(
+		Customer customer,
+		double similarity
+) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.customer;
+
+import java.util.List;
+
+public record CustomerPage(
+		List<Customer> customers,
+		Long nextCursor
+) {
+}
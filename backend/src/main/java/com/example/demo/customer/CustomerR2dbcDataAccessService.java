@@ -0,0 +1,217 @@
+package com.example.demo.customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import io.r2dbc.spi.Readable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository("r2dbc")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CustomerR2dbcDataAccessService implements ReactiveCustomerDao {
+	private final DatabaseClient databaseClient;
+	private final int exportFetchSize;
+	private final int batchChunkSize;
+
+	public CustomerR2dbcDataAccessService(
+			DatabaseClient databaseClient,
+			@Value("${customer.export.fetch-size:1000}") int exportFetchSize,
+			@Value("${customer.batch.chunk-size:1000}") int batchChunkSize
+	) {
+		this.databaseClient = databaseClient;
+		this.exportFetchSize = exportFetchSize;
+		this.batchChunkSize = batchChunkSize;
+	}
+
+	@Override
+	public Flux<Customer> selectCustomers(Long afterId, int limit) {
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
+							WHERE id > $1
+							ORDER BY id
+							LIMIT $2
+				""";
+
+		return databaseClient.sql(sql)
+				.bind(0, afterId == null ? 0L : afterId)
+				.bind(1, limit)
+				.map(CustomerR2dbcDataAccessService::mapRow)
+				.all();
+	}
+
+	@Override
+	public Flux<Customer> selectAllCustomers() {
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
+							ORDER BY id
+				""";
+
+		// with a fetch size the driver pulls rows from a portal as downstream demand arrives
+		return databaseClient.sql(sql)
+				.filter((statement, next) -> next.execute(statement.fetchSize(exportFetchSize)))
+				.map(CustomerR2dbcDataAccessService::mapRow)
+				.all();
+	}
+
+	@Override
+	public Mono<Customer> selectCustomerById(Long id) {
+		var sql = """
+							SELECT id, name, email, age, version
+							FROM customer
+							WHERE id = $1
+				""";
+
+		return databaseClient.sql(sql)
+				.bind(0, id)
+				.map(CustomerR2dbcDataAccessService::mapRow)
+				.one();
+	}
+
+	@Override
+	public Mono<Long> insertCustomer(Customer customer) {
+		var sql = """
+							INSERT INTO customer(name, email, age)
+							VALUES($1, $2, $3)
+							ON CONFLICT (email) DO NOTHING
+							RETURNING id
+				""";
+
+		DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql);
+		statement = bind(statement, 0, customer.getName(), String.class);
+		statement = bind(statement, 1, customer.getEmail(), String.class);
+		statement = bind(statement, 2, customer.getAge(), Integer.class);
+		return statement.map(row -> row.get("id", Long.class)).one();
+	}
+
+	@Override
+	public Flux<Customer> insertCustomers(List<Customer> customers) {
+		var sql = """
+							INSERT INTO customer(name, email, age)
+							SELECT * FROM unnest($1::text[], $2::text[], $3::int[])
+							ON CONFLICT (email) DO NOTHING
+							RETURNING id, name, email, age, version
+				""";
+
+		List<List<Customer>> chunks = new ArrayList<>();
+		for (int from = 0; from < customers.size(); from += batchChunkSize) {
+			chunks.add(customers.subList(from, Math.min(from + batchChunkSize, customers.size())));
+		}
+		return Flux.fromIterable(chunks)
+				.concatMap(chunk -> databaseClient.sql(sql)
+						.bind(0, chunk.stream().map(Customer::getName).toArray(String[]::new))
+						.bind(1, chunk.stream().map(Customer::getEmail).toArray(String[]::new))
+						.bind(2, chunk.stream().map(Customer::getAge).toArray(Integer[]::new))
+						.map(CustomerR2dbcDataAccessService::mapRow)
+						.all());
+	}
+
+	@Override
+	public Mono<Boolean> existsPersonWithEmail(String email) {
+		var sql = """
+							SELECT EXISTS(
+								SELECT 1
+								FROM customer
+								WHERE email = $1
+							) AS present
+				""";
+
+		return databaseClient.sql(sql)
+				.bind(0, email)
+				.map(row -> Boolean.TRUE.equals(row.get("present", Boolean.class)))
+				.one();
+	}
+
+	@Override
+	public Mono<Boolean> existsPersonWithId(Long id) {
+		var sql = """
+							SELECT EXISTS(
+								SELECT 1
+								FROM customer
+								WHERE id = $1
+							) AS present
+				""";
+
+		return databaseClient.sql(sql)
+				.bind(0, id)
+				.map(row -> Boolean.TRUE.equals(row.get("present", Boolean.class)))
+				.one();
+	}
+
+	@Override
+	public Mono<Boolean> deleteCustomerById(Long customerId) {
+		var sql = """
+							DELETE
+							FROM customer
+							WHERE id = $1
+				""";
+
+		return databaseClient.sql(sql)
+				.bind(0, customerId)
+				.fetch()
+				.rowsUpdated()
+				.map(rows -> rows > 0);
+	}
+
+	@Override
+	public Mono<Customer> updateCustomer(Customer update) {
+		List<String> columns = new ArrayList<>();
+		List<Object> values = new ArrayList<>();
+		if(update.getName() != null){
+			columns.add("name");
+			values.add(update.getName());
+		}
+		if(update.getEmail() != null){
+			columns.add("email");
+			values.add(update.getEmail());
+		}
+		if(update.getAge() != null){
+			columns.add("age");
+			values.add(update.getAge());
+		}
+		if(columns.isEmpty()){
+			return Mono.empty();
+		}
+
+		// $1 is the id, then one placeholder per column shared by the assignment and the change check
+		List<String> assignments = new ArrayList<>();
+		List<String> changes = new ArrayList<>();
+		for (int i = 0; i < columns.size(); i++) {
+			assignments.add("%s = $%d".formatted(columns.get(i), i + 2));
+			changes.add("%s IS DISTINCT FROM $%d".formatted(columns.get(i), i + 2));
+		}
+		var sql = """
+							UPDATE customer
+							SET %s, version = version + 1
+							WHERE id = $1 AND (%s)
+							RETURNING id, name, email, age, version
+				""".formatted(String.join(", ", assignments), String.join(" OR ", changes));
+
+		DatabaseClient.GenericExecuteSpec statement = databaseClient.sql(sql).bind(0, update.getId());
+		for (int i = 0; i < values.size(); i++) {
+			statement = statement.bind(i + 1, values.get(i));
+		}
+		return statement.map(CustomerR2dbcDataAccessService::mapRow).one();
+	}
+
+	private static DatabaseClient.GenericExecuteSpec bind(
+			DatabaseClient.GenericExecuteSpec statement, int index, Object value, Class<?> type
+	) {
+		return value == null ? statement.bindNull(index, type) : statement.bind(index, value);
+	}
+
+	private static Customer mapRow(Readable row) {
+		return new Customer(
+				row.get("id", Long.class),
+				row.get("name", String.class),
+				row.get("email", String.class),
+				row.get("age", Integer.class),
+				row.get("version", Long.class)
+		);
+	}
+}
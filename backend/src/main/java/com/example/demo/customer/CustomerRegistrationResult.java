@@ -0,0 +1,12 @@
+package com.example.demo.customer;
+
+public record CustomerRegistrationResult(
+		String email,
+		Long id,
+		Status status
+) {
+	public enum Status {
+		CREATED,
+		DUPLICATE
+	}
+}
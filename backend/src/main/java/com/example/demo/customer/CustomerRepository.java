@@ -1,11 +1,92 @@
 package com.example.demo.customer;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
 
 	boolean existsCustomerByEmail(String email);
 
 	boolean existsCustomerById(Long id);
 
+	List<Customer> findByIdGreaterThan(Long id, Pageable pageable);
+
+	@Query("SELECT c.email FROM Customer c WHERE c.email IN :emails")
+	Set<String> findExistingEmails(Collection<String> emails);
+
+	@Query(value = """
+			SELECT id, name, email, age, version,
+				GREATEST(word_similarity(:query, lower(name)), word_similarity(:query, lower(email))) AS similarity
+			FROM customer
+			WHERE :query <% lower(name) OR :query <% lower(email)
+			ORDER BY similarity DESC, id
+			LIMIT :limit
+			""", nativeQuery = true)
+	List<Similar> findSimilar(String query, int limit);
+
+	@Query(value = """
+			SELECT age, lower(split_part(email, '@', 2)) AS domain, count(*) AS customers
+			FROM customer
+			GROUP BY GROUPING SETS ((age), (lower(split_part(email, '@', 2))))
+			""", nativeQuery = true)
+	List<Count> countByAgeAndEmailDomain();
+
+	@Query("SELECT c.version FROM Customer c WHERE c.id = :id")
+	Optional<Long> findVersionById(Long id);
+
+	// a bulk DELETE reports the rows it removed; the derived deleteById loads the entity first
+	@Modifying
+	@Query("DELETE FROM Customer c WHERE c.id = :id")
+	int deleteCustomerById(Long id);
+
+	@Modifying
+	@Query("DELETE FROM Customer c WHERE c.id = :id AND c.version = :version")
+	int deleteCustomerByIdAndVersion(Long id, Long version);
+
+	// ids come from the sequence inside the statement, not one nextval round trip per entity
+	@Query(value = """
+			INSERT INTO customer(name, email, age)
+			SELECT * FROM unnest(CAST(:names AS text[]), CAST(:emails AS text[]), CAST(:ages AS int[]))
+			ON CONFLICT (email) DO NOTHING
+			RETURNING id, name, email, age, version
+			""", nativeQuery = true)
+	List<Customer> insertAllReturning(String[] names, String[] emails, Integer[] ages);
+
+	// the rows come from the DELETE itself, so ids another transaction removed first are left out
+	@Query(value = """
+			DELETE FROM customer
+			WHERE id IN :ids
+			RETURNING id, name, email, age, version
+			""", nativeQuery = true)
+	List<Customer> deleteAllByIdReturning(Collection<Long> ids);
+
+	interface Similar {
+		Long getId();
+
+		String getName();
+
+		String getEmail();
+
+		Integer getAge();
+
+		Long getVersion();
+
+		Double getSimilarity();
+	}
+
+	interface Count {
+		Integer getAge();
+
+		String getDomain();
+
+		Long getCustomers();
+	}
+
 }
@@ -5,15 +5,35 @@ import java.sql.SQLException;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+/**
+ * Reads columns by position, so every query it maps must start with
+ * {@code id, name, email, age, version} in that order; extra columns may follow.
+ */
 @Component
 public class CustomerRowMapper implements RowMapper<Customer> {
+	static final int ID = 1;
+	static final int NAME = 2;
+	static final int EMAIL = 3;
+	static final int AGE = 4;
+	static final int VERSION = 5;
+
 	@Override
 	public Customer mapRow(ResultSet rs, int rowNum) throws SQLException {
 		return new Customer(
-				rs.getLong("id"),
-				rs.getString("name"),
-				rs.getString("email"),
-				rs.getInt("age")
+				rs.getLong(ID),
+				rs.getString(NAME),
+				rs.getString(EMAIL),
+				rs.getInt(AGE),
+				rs.getLong(VERSION)
+		);
+	}
+
+	public CustomerView mapView(ResultSet rs) throws SQLException {
+		return new CustomerView(
+				rs.getLong(ID),
+				rs.getString(NAME),
+				rs.getString(EMAIL),
+				rs.getInt(AGE)
 		);
 	}
 }
@@ -0,0 +1,32 @@
+package com.example.demo.customer;
+
+/**
+ * Optional filters combined with AND. {@code namePrefix} and {@code emailDomain} are lower case and
+ * match the lower-cased column; results are ordered by {@code sort}, then by id.
+ */
+public record CustomerSearch(
+		String namePrefix,
+		String emailDomain,
+		Integer minAge,
+		Integer maxAge,
+		Sort sort,
+		boolean descending,
+		int offset,
+		int limit
+) {
+	public enum Sort {
+		ID,
+		NAME,
+		AGE
+	}
+
+	/**
+	 * @return a LIKE pattern matching names starting with {@code namePrefix}, wildcards in it escaped
+	 */
+	String namePrefixPattern() {
+		return namePrefix
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_") + "%";
+	}
+}
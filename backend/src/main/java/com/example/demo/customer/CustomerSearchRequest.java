@@ -0,0 +1,12 @@
+package com.example.demo.customer;
+
+public record CustomerSearchRequest(
+		String name,
+		String emailDomain,
+		Integer minAge,
+		Integer maxAge,
+		String sort,
+		Integer offset,
+		Integer limit
+) {
+}
@@ -1,22 +1,103 @@
 package com.example.demo.customer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import org.springframework.beans.factory.annotation.Qualifier;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import com.example.demo.exception.DuplicateResourceException;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.RequestValidationException;
 import com.example.demo.exception.ResourceNotFoundException;
 
 @Service
 public class CustomerService {
+	static final int MAX_PAGE_SIZE = 1000;
+	static final int DEFAULT_PAGE_SIZE = 50;
+	// every search page reads and skips the rows before it, so deep pages are refused rather than
+	// growing without bound; callers going further narrow the filters, or list by keyset with getCustomers
+	static final int MAX_SEARCH_OFFSET = 10_000;
+	static final int MAX_BATCH_SIZE = 100_000;
+	static final int DEFAULT_TOP_DOMAINS = 10;
+
 	private final CustomerDao customerDao;
+	private final CustomerAggregates customerAggregates;
 
-	public CustomerService(@Qualifier("jdbc") CustomerDao customerDao) {
+	public CustomerService(CustomerDao customerDao, Optional<CustomerAggregates> customerAggregates) {
 		this.customerDao = customerDao;
+		this.customerAggregates = customerAggregates.orElse(null);
 	}
 
-	public List<Customer> getAllCustomers() {
-		return customerDao.selectAllCustomers();
+	public CustomerPage getCustomers(Long after, int limit) {
+		if(limit < 1 || limit > MAX_PAGE_SIZE){
+			throw new RequestValidationException(
+					"limit must be between 1 and %d".formatted(MAX_PAGE_SIZE)
+			);
+		}
+		List<Customer> customers = customerDao.selectCustomers(after, limit + 1);
+		if(customers.size() <= limit){
+			return new CustomerPage(customers, null);
+		}
+		List<Customer> page = customers.subList(0, limit);
+		return new CustomerPage(page, page.get(limit - 1).getId());
+	}
+
+	public List<Customer> searchCustomers(CustomerSearchRequest request) {
+		int limit = request.limit() == null ? DEFAULT_PAGE_SIZE : request.limit();
+		if(limit < 1 || limit > MAX_PAGE_SIZE){
+			throw new RequestValidationException(
+					"limit must be between 1 and %d".formatted(MAX_PAGE_SIZE)
+			);
+		}
+		int offset = request.offset() == null ? 0 : request.offset();
+		if(offset < 0 || offset > MAX_SEARCH_OFFSET){
+			throw new RequestValidationException(
+					"offset must be between 0 and %d".formatted(MAX_SEARCH_OFFSET)
+			);
+		}
+		if(request.minAge() != null && request.maxAge() != null && request.minAge() > request.maxAge()){
+			throw new RequestValidationException("minAge must not be greater than maxAge");
+		}
+
+		String sort = request.sort() == null ? "id" : request.sort();
+		boolean descending = sort.startsWith("-");
+		CustomerSearch.Sort sortBy;
+		try {
+			sortBy = CustomerSearch.Sort.valueOf(sort.substring(descending ? 1 : 0).toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new RequestValidationException(
+					"sort must be one of id, name or age, prefixed with - for descending order"
+			);
+		}
+
+		return customerDao.searchCustomers(searchOf(request, sortBy, descending, offset, limit));
+	}
+
+	public List<CustomerMatch> fuzzySearchCustomers(String query, Integer limit) {
+		if(query == null || query.isBlank()){
+			throw new RequestValidationException("query must not be blank");
+		}
+		int size = limit == null ? DEFAULT_PAGE_SIZE : limit;
+		if(size < 1 || size > MAX_PAGE_SIZE){
+			throw new RequestValidationException(
+					"limit must be between 1 and %d".formatted(MAX_PAGE_SIZE)
+			);
+		}
+		return customerDao.fuzzySearchCustomers(query.strip().toLowerCase(Locale.ROOT), size);
+	}
+
+	public void exportCustomers(Consumer<CustomerView> action) {
+		customerDao.forEachCustomer(action);
 	}
 
 	public Customer getCustomer(Long id) {
@@ -24,66 +105,257 @@ public class CustomerService {
 				() -> new ResourceNotFoundException("customer with id [%d] not found".formatted(id)));
 	}
 
-	public void addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
-		String email = customerRegistrationRequest.email();
-		if(customerDao.existsPersonWithEmail(email)){
-			throw new DuplicateResourceException(
-					"email already taken"
+	public Long getCustomerVersion(Long id) {
+		return customerDao.selectCustomerVersion(id).orElseThrow(
+				() -> new ResourceNotFoundException("customer with id [%d] not found".formatted(id)));
+	}
+
+	public CustomerStatistics getStatistics(Integer topDomains) {
+		int domains = topDomains == null ? DEFAULT_TOP_DOMAINS : topDomains;
+		if(domains < 1 || domains > MAX_PAGE_SIZE){
+			throw new RequestValidationException(
+					"domains must be between 1 and %d".formatted(MAX_PAGE_SIZE)
 			);
 		}
+		if(customerAggregates == null){
+			throw new ResourceNotFoundException("customer statistics are disabled");
+		}
+		return customerAggregates.statistics(domains);
+	}
+
+	public boolean isEmailAvailable(String email) {
+		return !customerDao.existsPersonWithEmail(email);
+	}
+
+	public Long addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
 		Customer customer = new Customer(
 				customerRegistrationRequest.name(),
 				customerRegistrationRequest.email(),
 				customerRegistrationRequest.age());
 
-		customerDao.insertCustomer(customer);
+		// the unique email constraint decides, so concurrent registrations cannot both succeed
+		return customerDao.insertCustomer(customer).orElseThrow(
+				() -> new DuplicateResourceException("email already taken"));
+	}
+
+	public List<CustomerRegistrationResult> addCustomers(List<CustomerRegistrationRequest> requests){
+		if(requests.size() > MAX_BATCH_SIZE){
+			throw new RequestValidationException(
+					"at most %d customers can be registered at once".formatted(MAX_BATCH_SIZE)
+			);
+		}
+
+		Map<String, Customer> customersByEmail = new LinkedHashMap<>();
+		for (int i = 0; i < requests.size(); i++) {
+			CustomerRegistrationRequest request = requests.get(i);
+			if(request.name() == null || request.email() == null || request.age() == null){
+				throw new RequestValidationException(
+						"customer at index [%d] is missing name, email or age".formatted(i)
+				);
+			}
+			customersByEmail.putIfAbsent(
+					request.email(),
+					new Customer(request.name(), request.email(), request.age())
+			);
+		}
+
+		List<Customer> inserted;
+		try {
+			inserted = customerDao.insertCustomers(new ArrayList<>(customersByEmail.values()));
+		} catch (DataIntegrityViolationException e) {
+			throw new DuplicateResourceException(
+					"email already taken"
+			);
+		}
+		Map<String, Long> idsByEmail = new HashMap<>();
+		inserted.forEach(c -> idsByEmail.put(c.getEmail(), c.getId()));
+
+		List<CustomerRegistrationResult> results = new ArrayList<>(requests.size());
+		for (CustomerRegistrationRequest request : requests) {
+			// a repeated email within the batch is only created for its first occurrence
+			Long id = idsByEmail.remove(request.email());
+			results.add(id != null
+					? new CustomerRegistrationResult(request.email(), id, CustomerRegistrationResult.Status.CREATED)
+					: new CustomerRegistrationResult(request.email(), null, CustomerRegistrationResult.Status.DUPLICATE));
+		}
+		return results;
+	}
+
+	public List<CustomerBulkResult> updateCustomers(List<CustomerBulkUpdateRequest> requests){
+		if(requests.size() > MAX_BATCH_SIZE){
+			throw new RequestValidationException(
+					"at most %d customers can be updated at once".formatted(MAX_BATCH_SIZE)
+			);
+		}
+
+		Set<Long> ids = new HashSet<>();
+		Set<String> emails = new HashSet<>();
+		List<Customer> updates = new ArrayList<>(requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			CustomerBulkUpdateRequest request = requests.get(i);
+			if(request.id() == null){
+				throw new RequestValidationException("customer at index [%d] is missing an id".formatted(i));
+			}
+			if(request.name() == null && request.email() == null && request.age() == null){
+				throw new RequestValidationException("customer at index [%d] has no data changes".formatted(i));
+			}
+			// one statement applies them all, so repeats would race each other inside it
+			if(!ids.add(request.id())){
+				throw new RequestValidationException("customer [%d] appears more than once".formatted(request.id()));
+			}
+			if(request.email() != null && !emails.add(request.email())){
+				throw new RequestValidationException("email [%s] appears more than once".formatted(request.email()));
+			}
+			updates.add(new Customer(request.id(), request.name(), request.email(), request.age()));
+		}
+
+		List<CustomerBulkResult> results;
+		try {
+			results = customerDao.updateCustomers(updates);
+		} catch (DataIntegrityViolationException e) {
+			throw new DuplicateResourceException(
+					"email already taken"
+			);
+		}
+		Map<Long, CustomerBulkResult> resultsById = new HashMap<>();
+		results.forEach(result -> resultsById.put(result.id(), result));
+		return requests.stream().map(request -> resultsById.get(request.id())).toList();
+	}
+
+	public List<CustomerBulkResult> deleteCustomers(List<Long> customerIds){
+		if(customerIds.size() > MAX_BATCH_SIZE){
+			throw new RequestValidationException(
+					"at most %d customers can be deleted at once".formatted(MAX_BATCH_SIZE)
+			);
+		}
+		if(customerIds.stream().anyMatch(Objects::isNull)){
+			throw new RequestValidationException("customer ids must not be null");
+		}
+
+		List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(customerIds));
+		Set<Long> deleted = new HashSet<>();
+		customerDao.deleteCustomersById(distinctIds).forEach(customer -> deleted.add(customer.getId()));
+		return distinctIds.stream()
+				.map(id -> new CustomerBulkResult(id, deleted.contains(id)
+						? CustomerBulkResult.Status.DELETED
+						: CustomerBulkResult.Status.NOT_FOUND))
+				.toList();
+	}
+
+	public List<CustomerBulkResult> deleteCustomers(CustomerSearchRequest filter){
+		if(filter.minAge() != null && filter.maxAge() != null && filter.minAge() > filter.maxAge()){
+			throw new RequestValidationException("minAge must not be greater than maxAge");
+		}
+		// each call deletes one page, so neither the statement nor the response grows with the match count
+		CustomerSearch search = searchOf(filter, CustomerSearch.Sort.ID, false, 0, MAX_PAGE_SIZE);
+		if(search.namePrefix() == null && search.emailDomain() == null
+				&& search.minAge() == null && search.maxAge() == null){
+			throw new RequestValidationException(
+					"deleting by filter needs at least one of name, emailDomain, minAge or maxAge"
+			);
+		}
+
+		return customerDao.deleteCustomers(search)
+				.stream()
+				.map(customer -> new CustomerBulkResult(customer.getId(), CustomerBulkResult.Status.DELETED))
+				.toList();
 	}
 
 	public void deleteCustomer(Long id){
-		Customer customer = getCustomer(id);
-		customerDao.deleteCustomer(customer);
+		Customer customer = new Customer();
+		customer.setId(id);
+		if(customerDao.deleteCustomer(customer) == 0){
+			throw new ResourceNotFoundException(
+					"customer with id [%s] not found".formatted(id)
+			);
+		}
 	}
 
 	public void deleteCustomerById(Long customerId){
-		if(!customerDao.existsPersonWithId(customerId)){
+		// the DELETE reports whether the row existed, so there is no separate existence check
+		if(customerDao.deleteCustomerById(customerId) == 0){
 			throw new ResourceNotFoundException(
 					"customer with id [%s] not found".formatted(customerId)
 			);
 		}
-
-		customerDao.deleteCustomerById(customerId);
 	}
 
-	public void updateCustomer(Long customerId, CustomerUpdateRequest updateRequest) {
-		Customer customer = getCustomer(customerId);
-
-		boolean changes = false;
+	public Customer updateCustomer(Long customerId, CustomerUpdateRequest updateRequest) {
+		return updateCustomer(customerId, updateRequest, null);
+	}
 
-		if(updateRequest.name() != null && !updateRequest.name().equals(customer.getName())){
-			customer.setName(updateRequest.name());
-			changes = true;
+	/**
+	 * @param expectedVersion the version the caller last saw, or null to update whatever is current
+	 */
+	public Customer updateCustomer(Long customerId, CustomerUpdateRequest updateRequest, Long expectedVersion) {
+		if(updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null){
+			throw new RequestValidationException("no data changes found");
 		}
+		Customer update = new Customer(
+				customerId,
+				updateRequest.name(),
+				updateRequest.email(),
+				updateRequest.age(),
+				expectedVersion);
 
-		if(updateRequest.age() != null && !updateRequest.age().equals(customer.getAge())){
-			customer.setAge(updateRequest.age());
-			changes = true;
+		Optional<Customer> updated;
+		try {
+			updated = customerDao.updateCustomer(update);
+		} catch (DataIntegrityViolationException e) {
+			throw new DuplicateResourceException(
+					"email already taken"
+			);
+		} catch (OptimisticLockingFailureException e) {
+			throw modifiedSince(customerId);
+		}
+		if(updated.isPresent()){
+			return updated.get();
 		}
 
-		if(updateRequest.email() != null && !updateRequest.email().equals(customer.getEmail())){
-
-			if(customerDao.existsPersonWithEmail(updateRequest.email())){
-				throw new DuplicateResourceException(
-						"email already taken"
-				);
-			}
-			customer.setEmail(updateRequest.email());
-			changes = true;
+		// the single UPDATE touches no row for unknown ids, stale versions and no-op changes alike;
+		// one lookup of the version tells them apart
+		Optional<Long> version = customerDao.selectCustomerVersion(customerId);
+		if(version.isEmpty()){
+			throw new ResourceNotFoundException(
+					"customer with id [%s] not found".formatted(customerId)
+			);
 		}
+		if(expectedVersion != null && !version.get().equals(expectedVersion)){
+			throw modifiedSince(customerId);
+		}
+		throw new RequestValidationException("no data changes found");
+	}
 
-		if(!changes){
-			throw new RequestValidationException("no data changes found");
+	private static CustomerSearch searchOf(
+			CustomerSearchRequest request,
+			CustomerSearch.Sort sort,
+			boolean descending,
+			int offset,
+			int limit
+	) {
+		String emailDomain = request.emailDomain();
+		if(emailDomain != null && emailDomain.startsWith("@")){
+			emailDomain = emailDomain.substring(1);
 		}
+		return new CustomerSearch(
+				lowerCaseOrNull(request.name()),
+				lowerCaseOrNull(emailDomain),
+				request.minAge(),
+				request.maxAge(),
+				sort,
+				descending,
+				offset,
+				limit
+		);
+	}
+
+	private static PreconditionFailedException modifiedSince(Long customerId) {
+		return new PreconditionFailedException(
+				"customer with id [%s] has been modified since it was read".formatted(customerId)
+		);
+	}
 
-		customerDao.updateCustomer(customer);
+	private static String lowerCaseOrNull(String value) {
+		return value == null || value.isBlank() ? null : value.toLowerCase(Locale.ROOT);
 	}
 }
@@ -0,0 +1,49 @@
+package com.example.demo.customer;
+
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * {@link CustomerSearch} filters as JPA specifications, written against the same expressions as the
+ * search indexes so PostgreSQL can use them.
+ */
+final class CustomerSpecifications {
+
+	private CustomerSpecifications() {
+	}
+
+	static Specification<Customer> matching(CustomerSearch search) {
+		Specification<Customer> specification = Specification.where(null);
+		if (search.namePrefix() != null) {
+			specification = specification.and(nameStartsWith(search.namePrefixPattern()));
+		}
+		if (search.emailDomain() != null) {
+			specification = specification.and(emailDomainIs(search.emailDomain()));
+		}
+		if (search.minAge() != null) {
+			specification = specification.and(ageAtLeast(search.minAge()));
+		}
+		if (search.maxAge() != null) {
+			specification = specification.and(ageAtMost(search.maxAge()));
+		}
+		return specification;
+	}
+
+	static Specification<Customer> nameStartsWith(String pattern) {
+		return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+	}
+
+	static Specification<Customer> emailDomainIs(String domain) {
+		return (root, query, cb) -> cb.equal(
+				cb.lower(cb.function("split_part", String.class, root.get("email"), cb.literal("@"), cb.literal(2))),
+				domain
+		);
+	}
+
+	static Specification<Customer> ageAtLeast(int age) {
+		return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), age);
+	}
+
+	static Specification<Customer> ageAtMost(int age) {
+		return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), age);
+	}
+}
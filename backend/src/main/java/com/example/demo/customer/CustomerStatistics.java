@@ -0,0 +1,17 @@
+package com.example.demo.customer;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CustomerStatistics(
+		long customers,
+		List<AgeBucket> ageHistogram,
+		List<EmailDomain> emailDomains,
+		Instant reconciledAt
+) {
+	public record AgeBucket(int from, int to, long customers) {
+	}
+
+	public record EmailDomain(String domain, long customers) {
+	}
+}
@@ -0,0 +1,16 @@
+package com.example.demo.customer;
+
+/**
+ * Read-only projection of a customer for streaming reads: no version, no boxing and nothing for
+ * the persistence context to track.
+ */
+public record CustomerView(
+		long id,
+		String name,
+		String email,
+		int age
+) {
+	static CustomerView of(Customer customer) {
+		return new CustomerView(customer.getId(), customer.getName(), customer.getEmail(), customer.getAge());
+	}
+}
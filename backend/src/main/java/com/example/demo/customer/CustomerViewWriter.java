@@ -0,0 +1,22 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes a {@link CustomerView} with the same fields as the {@link Customer} JSON, straight to the
+ * generator instead of through a reflective bean serializer.
+ */
+final class CustomerViewWriter {
+	private CustomerViewWriter() {
+	}
+
+	static void write(JsonGenerator generator, CustomerView customer) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("id", customer.id());
+		generator.writeStringField("name", customer.name());
+		generator.writeStringField("email", customer.email());
+		generator.writeNumberField("age", customer.age());
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,243 @@
+package com.example.demo.customer;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of acknowledged customer writes, split into numbered segment files.
+ * Records are framed with their length and a CRC so a torn tail left by a crash ends replay
+ * instead of corrupting it. Appends and rotation are serialised by the caller; {@link #sync}
+ * may be called concurrently and shares one fsync between all writers waiting on it.
+ */
+final class CustomerWriteJournal implements Closeable {
+	private static final String PREFIX = "customer-journal-";
+	private static final String SUFFIX = ".log";
+	private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+	enum Operation {
+		INSERT, UPDATE, DELETE
+	}
+
+	record Entry(Operation operation, Customer customer) {
+	}
+
+	private final Path directory;
+	private final ReentrantLock syncLock = new ReentrantLock();
+	private FileChannel channel;
+	private long segment;
+	private volatile long written;
+	private long synced;
+
+	CustomerWriteJournal(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Reads every record left by a previous run and starts a new segment after them.
+	 */
+	List<Entry> open() throws IOException {
+		Files.createDirectories(directory);
+		List<Entry> entries = new ArrayList<>();
+		long last = 0;
+		for (Path file : segments()) {
+			read(file, entries);
+			last = sequenceOf(file);
+		}
+		segment = last + 1;
+		channel = openSegment(segment);
+		return entries;
+	}
+
+	/**
+	 * @return the position to pass to {@link #sync} to make this record durable
+	 */
+	long append(Entry entry) throws IOException {
+		byte[] payload = encode(entry);
+		CRC32C crc = new CRC32C();
+		crc.update(payload);
+		ByteBuffer record = ByteBuffer.allocate(Integer.BYTES * 2 + payload.length)
+				.putInt(payload.length)
+				.putInt((int) crc.getValue())
+				.put(payload)
+				.flip();
+		while (record.hasRemaining()) {
+			channel.write(record);
+		}
+		written += record.limit();
+		return written;
+	}
+
+	void sync(long position) throws IOException {
+		syncLock.lock();
+		try {
+			if (synced >= position) {
+				return;
+			}
+			long target = written;
+			channel.force(false);
+			synced = target;
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the current segment and starts the next one.
+	 *
+	 * @return the sequence number of the closed segment
+	 */
+	long rotate() throws IOException {
+		syncLock.lock();
+		try {
+			channel.force(false);
+			synced = written;
+			channel.close();
+			long closed = segment;
+			segment++;
+			channel = openSegment(segment);
+			return closed;
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	void deleteThrough(long sequence) throws IOException {
+		boolean deleted = false;
+		for (Path file : segments()) {
+			if (sequenceOf(file) <= sequence) {
+				deleted |= Files.deleteIfExists(file);
+			}
+		}
+		if (deleted) {
+			syncDirectory();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		syncLock.lock();
+		try {
+			channel.force(false);
+			channel.close();
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	private FileChannel openSegment(long sequence) throws IOException {
+		FileChannel segmentChannel = FileChannel.open(
+				directory.resolve(PREFIX + "%020d".formatted(sequence) + SUFFIX),
+				StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE
+		);
+		try {
+			syncDirectory();
+		} catch (IOException e) {
+			segmentChannel.close();
+			throw e;
+		}
+		return segmentChannel;
+	}
+
+	// forcing a file does not persist its directory entry, so a new segment could vanish with every
+	// record synced to it, and a deleted one come back to be replayed again
+	private void syncDirectory() throws IOException {
+		try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			directoryChannel.force(true);
+		}
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files
+					.filter(file -> file.getFileName().toString().startsWith(PREFIX))
+					.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+					.sorted()
+					.toList();
+		}
+	}
+
+	private static long sequenceOf(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+
+	private static void read(Path file, List<Entry> entries) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while (true) {
+				int length = in.readInt();
+				int checksum = in.readInt();
+				if (length < 0 || length > MAX_RECORD_LENGTH) {
+					return;
+				}
+				byte[] payload = new byte[length];
+				in.readFully(payload);
+				CRC32C crc = new CRC32C();
+				crc.update(payload);
+				if ((int) crc.getValue() != checksum) {
+					return;
+				}
+				entries.add(decode(payload));
+			}
+		} catch (EOFException e) {
+			// end of the segment, or a record that was cut off while being written
+		}
+	}
+
+	private static byte[] encode(Entry entry) throws IOException {
+		Customer customer = entry.customer();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(entry.operation().ordinal());
+		out.writeLong(customer.getId());
+		writeNullable(out, customer.getName());
+		writeNullable(out, customer.getEmail());
+		out.writeBoolean(customer.getAge() != null);
+		if (customer.getAge() != null) {
+			out.writeInt(customer.getAge());
+		}
+		// every insert and update carries the version it leaves the row at; a delete has none to carry
+		if (entry.operation() != Operation.DELETE) {
+			out.writeLong(customer.getVersion());
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Entry decode(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		Operation operation = Operation.values()[in.readByte()];
+		long id = in.readLong();
+		String name = readNullable(in);
+		String email = readNullable(in);
+		Integer age = in.readBoolean() ? in.readInt() : null;
+		Long version = operation == Operation.DELETE ? null : in.readLong();
+		return new Entry(operation, new Customer(id, name, email, age, version));
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
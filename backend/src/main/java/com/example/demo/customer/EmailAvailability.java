@@ -0,0 +1,7 @@
+package com.example.demo.customer;
+
+public record EmailAvailability(
+		String email,
+		boolean available
+) {
+}
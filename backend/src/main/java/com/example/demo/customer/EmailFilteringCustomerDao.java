@@ -0,0 +1,63 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+
+public class EmailFilteringCustomerDao extends ForwardingCustomerDao {
+	private final CustomerEmailFilter emailFilter;
+
+	public EmailFilteringCustomerDao(CustomerDao delegate, CustomerEmailFilter emailFilter) {
+		super(delegate);
+		this.emailFilter = emailFilter;
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		if (!emailFilter.mightContain(email)) {
+			return false;
+		}
+		boolean exists = delegate.existsPersonWithEmail(email);
+		emailFilter.recordLookup(exists);
+		return exists;
+	}
+
+	// emails are added before the write so a concurrent lookup can only see a false positive, never a false negative
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		emailFilter.add(customer.getEmail());
+		return delegate.insertCustomer(customer);
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		customers.forEach(customer -> emailFilter.add(customer.getEmail()));
+		return delegate.insertCustomers(customers);
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		if (update.getEmail() != null) {
+			emailFilter.add(update.getEmail());
+		}
+		return delegate.updateCustomer(update);
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		if (update.getEmail() != null) {
+			emailFilter.add(update.getEmail());
+		}
+		return delegate.updateCustomerReturningChange(update);
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		updates.forEach(update -> {
+			if (update.getEmail() != null) {
+				emailFilter.add(update.getEmail());
+			}
+		});
+		return delegate.updateCustomers(updates);
+	}
+}
@@ -0,0 +1,113 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public abstract class ForwardingCustomerDao implements CustomerDao {
+	protected final CustomerDao delegate;
+
+	protected ForwardingCustomerDao(CustomerDao delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public List<Customer> selectAllCustomers() {
+		return delegate.selectAllCustomers();
+	}
+
+	@Override
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		return delegate.selectCustomers(afterId, limit);
+	}
+
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		return delegate.searchCustomers(search);
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		return delegate.fuzzySearchCustomers(query, limit);
+	}
+
+	@Override
+	public void forEachCustomer(Consumer<CustomerView> action) {
+		delegate.forEachCustomer(action);
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		return delegate.selectCustomerById(id);
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		return delegate.selectCustomerVersion(id);
+	}
+
+	@Override
+	public CustomerCounts countCustomers() {
+		return delegate.countCustomers();
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		return delegate.insertCustomer(customer);
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		return delegate.insertCustomers(customers);
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		return delegate.existsPersonWithEmail(email);
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		return delegate.deleteCustomer(customer);
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		return delegate.deleteCustomerReturningRow(customer);
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long customerId) {
+		return delegate.existsPersonWithId(customerId);
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		return delegate.deleteCustomerById(customerId);
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		return delegate.deleteCustomersById(customerIds);
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		return delegate.deleteCustomers(filter);
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		return delegate.updateCustomers(updates);
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		return delegate.updateCustomer(update);
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		return delegate.updateCustomerReturningChange(update);
+	}
+}
@@ -0,0 +1,253 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records {@code customer.dao} latency and {@code customer.dao.rows} per method, plus
+ * {@code customer.dao.errors} by exception type. Meters on the success path are resolved
+ * up front so a call costs two clock reads and no registry lookup.
+ */
+public class MeteredCustomerDao extends ForwardingCustomerDao {
+	private final MeterRegistry meterRegistry;
+	private final String backend;
+	private final Operation selectAllCustomers;
+	private final Operation selectCustomers;
+	private final Operation searchCustomers;
+	private final Operation fuzzySearchCustomers;
+	private final Operation forEachCustomer;
+	private final Operation selectCustomerById;
+	private final Operation selectCustomerVersion;
+	private final Operation countCustomers;
+	private final Operation insertCustomer;
+	private final Operation insertCustomers;
+	private final Operation existsPersonWithEmail;
+	private final Operation deleteCustomer;
+	private final Operation existsPersonWithId;
+	private final Operation deleteCustomerById;
+	private final Operation deleteCustomersById;
+	private final Operation deleteCustomers;
+	private final Operation updateCustomers;
+	private final Operation updateCustomer;
+
+	public MeteredCustomerDao(CustomerDao delegate, String backend, MeterRegistry meterRegistry) {
+		super(delegate);
+		this.meterRegistry = meterRegistry;
+		this.backend = backend;
+		this.selectAllCustomers = new Operation("selectAllCustomers");
+		this.selectCustomers = new Operation("selectCustomers");
+		this.searchCustomers = new Operation("searchCustomers");
+		this.fuzzySearchCustomers = new Operation("fuzzySearchCustomers");
+		this.forEachCustomer = new Operation("forEachCustomer");
+		this.selectCustomerById = new Operation("selectCustomerById");
+		this.selectCustomerVersion = new Operation("selectCustomerVersion");
+		this.countCustomers = new Operation("countCustomers");
+		this.insertCustomer = new Operation("insertCustomer");
+		this.insertCustomers = new Operation("insertCustomers");
+		this.existsPersonWithEmail = new Operation("existsPersonWithEmail");
+		this.deleteCustomer = new Operation("deleteCustomer");
+		this.existsPersonWithId = new Operation("existsPersonWithId");
+		this.deleteCustomerById = new Operation("deleteCustomerById");
+		this.deleteCustomersById = new Operation("deleteCustomersById");
+		this.deleteCustomers = new Operation("deleteCustomers");
+		this.updateCustomers = new Operation("updateCustomers");
+		this.updateCustomer = new Operation("updateCustomer");
+	}
+
+	@Override
+	public List<Customer> selectAllCustomers() {
+		List<Customer> customers = selectAllCustomers.record(delegate::selectAllCustomers);
+		selectAllCustomers.rows(customers.size());
+		return customers;
+	}
+
+	@Override
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		List<Customer> customers = selectCustomers.record(() -> delegate.selectCustomers(afterId, limit));
+		selectCustomers.rows(customers.size());
+		return customers;
+	}
+
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		List<Customer> customers = searchCustomers.record(() -> delegate.searchCustomers(search));
+		searchCustomers.rows(customers.size());
+		return customers;
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		List<CustomerMatch> matches = fuzzySearchCustomers.record(() -> delegate.fuzzySearchCustomers(query, limit));
+		fuzzySearchCustomers.rows(matches.size());
+		return matches;
+	}
+
+	@Override
+	public void forEachCustomer(Consumer<CustomerView> action) {
+		long[] rows = new long[1];
+		forEachCustomer.record(() -> {
+			delegate.forEachCustomer(customer -> {
+				rows[0]++;
+				action.accept(customer);
+			});
+			return null;
+		});
+		forEachCustomer.rows(rows[0]);
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		Optional<Customer> customer = selectCustomerById.record(() -> delegate.selectCustomerById(id));
+		selectCustomerById.rows(customer.isPresent() ? 1 : 0);
+		return customer;
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		Optional<Long> version = selectCustomerVersion.record(() -> delegate.selectCustomerVersion(id));
+		selectCustomerVersion.rows(version.isPresent() ? 1 : 0);
+		return version;
+	}
+
+	@Override
+	public CustomerCounts countCustomers() {
+		CustomerCounts counts = countCustomers.record(delegate::countCustomers);
+		countCustomers.rows(counts.customersByAge().size() + counts.customersByEmailDomain().size());
+		return counts;
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		Optional<Long> id = insertCustomer.record(() -> delegate.insertCustomer(customer));
+		insertCustomer.rows(id.isPresent() ? 1 : 0);
+		return id;
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		List<Customer> inserted = insertCustomers.record(() -> delegate.insertCustomers(customers));
+		insertCustomers.rows(inserted.size());
+		return inserted;
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		return existsPersonWithEmail.record(() -> delegate.existsPersonWithEmail(email));
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		int deleted = deleteCustomer.record(() -> delegate.deleteCustomer(customer));
+		deleteCustomer.rows(deleted);
+		return deleted;
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		Optional<Customer> deleted = deleteCustomer.record(() -> delegate.deleteCustomerReturningRow(customer));
+		deleteCustomer.rows(deleted.isPresent() ? 1 : 0);
+		return deleted;
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long customerId) {
+		return existsPersonWithId.record(() -> delegate.existsPersonWithId(customerId));
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		int deleted = deleteCustomerById.record(() -> delegate.deleteCustomerById(customerId));
+		deleteCustomerById.rows(deleted);
+		return deleted;
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		List<Customer> deleted = deleteCustomersById.record(() -> delegate.deleteCustomersById(customerIds));
+		deleteCustomersById.rows(deleted.size());
+		return deleted;
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		List<Customer> deleted = deleteCustomers.record(() -> delegate.deleteCustomers(filter));
+		deleteCustomers.rows(deleted.size());
+		return deleted;
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		List<CustomerBulkResult> results = updateCustomers.record(() -> delegate.updateCustomers(updates));
+		updateCustomers.rows(results.stream()
+				.filter(result -> result.status() == CustomerBulkResult.Status.UPDATED)
+				.count());
+		return results;
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		Optional<Customer> updated = updateCustomer.record(() -> delegate.updateCustomer(update));
+		updateCustomer.rows(updated.isPresent() ? 1 : 0);
+		return updated;
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		Optional<CustomerChange> updated = updateCustomer.record(() -> delegate.updateCustomerReturningChange(update));
+		updateCustomer.rows(updated.isPresent() ? 1 : 0);
+		return updated;
+	}
+
+	private final class Operation {
+		private final String method;
+		private final Timer success;
+		private final Timer failure;
+		private final DistributionSummary rows;
+
+		private Operation(String method) {
+			this.method = method;
+			this.success = timer(method, "success");
+			this.failure = timer(method, "error");
+			this.rows = DistributionSummary.builder("customer.dao.rows")
+					.description("Rows returned or affected per CustomerDao call")
+					.tags("method", method, "backend", backend)
+					.register(meterRegistry);
+		}
+
+		private Timer timer(String method, String outcome) {
+			return Timer.builder("customer.dao")
+					.description("CustomerDao call latency")
+					.tags("method", method, "backend", backend, "outcome", outcome)
+					.register(meterRegistry);
+		}
+
+		private <T> T record(Supplier<T> call) {
+			long start = System.nanoTime();
+			try {
+				T result = call.get();
+				success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				return result;
+			} catch (RuntimeException e) {
+				failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				meterRegistry.counter(
+						"customer.dao.errors",
+						"method", method,
+						"backend", backend,
+						"exception", e.getClass().getSimpleName()
+				).increment();
+				throw e;
+			}
+		}
+
+		private void rows(long count) {
+			rows.record(count);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerController {
+	private final ReactiveCustomerService customerService;
+
+	public ReactiveCustomerController(ReactiveCustomerService customerService) {
+		this.customerService = customerService;
+	}
+
+	@GetMapping
+	public Mono<CustomerPage> getCustomers(
+			@RequestParam(value = "after", required = false) Long after,
+			@RequestParam(value = "limit", defaultValue = "50") int limit
+	) {
+		return customerService.getCustomers(after, limit);
+	}
+
+	@GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Customer> exportCustomers() {
+		return customerService.exportCustomers();
+	}
+
+	@GetMapping("email-availability")
+	public Mono<EmailAvailability> getEmailAvailability(@RequestParam("email") String email) {
+		return customerService.isEmailAvailable(email)
+				.map(available -> new EmailAvailability(email, available));
+	}
+
+	@GetMapping("{customerId}")
+	public Mono<Customer> getCustomer(@PathVariable Long customerId) {
+		return customerService.getCustomer(customerId);
+	}
+
+	@PostMapping()
+	public Mono<CustomerRegistrationResult> registerCustomer(@RequestBody CustomerRegistrationRequest request){
+		return customerService.addCustomer(request)
+				.map(id -> new CustomerRegistrationResult(request.email(), id, CustomerRegistrationResult.Status.CREATED));
+	}
+
+	@PostMapping("batch")
+	public Mono<List<CustomerRegistrationResult>> registerCustomers(
+			@RequestBody List<CustomerRegistrationRequest> requests
+	){
+		return customerService.addCustomers(requests);
+	}
+
+	@DeleteMapping("{customerId}")
+	public Mono<Void> deleteCustomer(@PathVariable("customerId") Long customerId){
+		return customerService.deleteCustomerById(customerId);
+	}
+
+	@PutMapping("{customerId}")
+	public Mono<Customer> updateCustomer(
+			@PathVariable("customerId") Long customerId,
+			@RequestBody CustomerUpdateRequest customerUpdateRequest
+	){
+		return customerService.updateCustomer(customerId, customerUpdateRequest);
+	}
+}
@@ -0,0 +1,17 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveCustomerDao {
+	Flux<Customer> selectCustomers(Long afterId, int limit);
+	Flux<Customer> selectAllCustomers();
+	Mono<Customer> selectCustomerById(Long id);
+	Mono<Long> insertCustomer(Customer customer);
+	Flux<Customer> insertCustomers(List<Customer> customers);
+	Mono<Boolean> existsPersonWithEmail(String email);
+	Mono<Boolean> existsPersonWithId(Long id);
+	Mono<Boolean> deleteCustomerById(Long customerId);
+	Mono<Customer> updateCustomer(Customer update);
+}
@@ -0,0 +1,131 @@
+package com.example.demo.customer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import com.example.demo.exception.DuplicateResourceException;
+import com.example.demo.exception.RequestValidationException;
+import com.example.demo.exception.ResourceNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerService {
+	private final ReactiveCustomerDao customerDao;
+
+	public ReactiveCustomerService(ReactiveCustomerDao customerDao) {
+		this.customerDao = customerDao;
+	}
+
+	public Mono<CustomerPage> getCustomers(Long after, int limit) {
+		if(limit < 1 || limit > CustomerService.MAX_PAGE_SIZE){
+			return Mono.error(new RequestValidationException(
+					"limit must be between 1 and %d".formatted(CustomerService.MAX_PAGE_SIZE)
+			));
+		}
+		return customerDao.selectCustomers(after, limit + 1)
+				.collectList()
+				.map(customers -> {
+					if(customers.size() <= limit){
+						return new CustomerPage(customers, null);
+					}
+					List<Customer> page = customers.subList(0, limit);
+					return new CustomerPage(page, page.get(limit - 1).getId());
+				});
+	}
+
+	public Flux<Customer> exportCustomers() {
+		return customerDao.selectAllCustomers();
+	}
+
+	public Mono<Customer> getCustomer(Long id) {
+		return customerDao.selectCustomerById(id)
+				.switchIfEmpty(Mono.error(() -> new ResourceNotFoundException(
+						"customer with id [%d] not found".formatted(id))));
+	}
+
+	public Mono<Boolean> isEmailAvailable(String email) {
+		return customerDao.existsPersonWithEmail(email).map(exists -> !exists);
+	}
+
+	public Mono<Long> addCustomer(CustomerRegistrationRequest customerRegistrationRequest){
+		Customer customer = new Customer(
+				customerRegistrationRequest.name(),
+				customerRegistrationRequest.email(),
+				customerRegistrationRequest.age());
+
+		return customerDao.insertCustomer(customer)
+				.switchIfEmpty(Mono.error(() -> new DuplicateResourceException("email already taken")));
+	}
+
+	public Mono<List<CustomerRegistrationResult>> addCustomers(List<CustomerRegistrationRequest> requests){
+		if(requests.size() > CustomerService.MAX_BATCH_SIZE){
+			return Mono.error(new RequestValidationException(
+					"at most %d customers can be registered at once".formatted(CustomerService.MAX_BATCH_SIZE)
+			));
+		}
+
+		Map<String, Customer> customersByEmail = new LinkedHashMap<>();
+		for (int i = 0; i < requests.size(); i++) {
+			CustomerRegistrationRequest request = requests.get(i);
+			if(request.name() == null || request.email() == null || request.age() == null){
+				return Mono.error(new RequestValidationException(
+						"customer at index [%d] is missing name, email or age".formatted(i)
+				));
+			}
+			customersByEmail.putIfAbsent(
+					request.email(),
+					new Customer(request.name(), request.email(), request.age())
+			);
+		}
+
+		return customerDao.insertCustomers(new ArrayList<>(customersByEmail.values()))
+				.collectMap(Customer::getEmail, Customer::getId, HashMap::new)
+				.onErrorMap(DataIntegrityViolationException.class,
+						e -> new DuplicateResourceException("email already taken"))
+				.map(idsByEmail -> {
+					List<CustomerRegistrationResult> results = new ArrayList<>(requests.size());
+					for (CustomerRegistrationRequest request : requests) {
+						Long id = idsByEmail.remove(request.email());
+						results.add(id != null
+								? new CustomerRegistrationResult(request.email(), id, CustomerRegistrationResult.Status.CREATED)
+								: new CustomerRegistrationResult(request.email(), null, CustomerRegistrationResult.Status.DUPLICATE));
+					}
+					return results;
+				});
+	}
+
+	public Mono<Void> deleteCustomerById(Long customerId){
+		return customerDao.deleteCustomerById(customerId)
+				.flatMap(deleted -> deleted
+						? Mono.<Void>empty()
+						: Mono.error(new ResourceNotFoundException(
+								"customer with id [%s] not found".formatted(customerId))));
+	}
+
+	public Mono<Customer> updateCustomer(Long customerId, CustomerUpdateRequest updateRequest) {
+		if(updateRequest.name() == null && updateRequest.email() == null && updateRequest.age() == null){
+			return Mono.error(new RequestValidationException("no data changes found"));
+		}
+		Customer update = new Customer(
+				customerId,
+				updateRequest.name(),
+				updateRequest.email(),
+				updateRequest.age());
+
+		return customerDao.updateCustomer(update)
+				.onErrorMap(DataIntegrityViolationException.class,
+						e -> new DuplicateResourceException("email already taken"))
+				.switchIfEmpty(Mono.defer(() -> customerDao.existsPersonWithId(customerId)
+						.flatMap(exists -> Mono.error(exists
+								? new RequestValidationException("no data changes found")
+								: new ResourceNotFoundException(
+										"customer with id [%s] not found".formatted(customerId))))));
+	}
+}
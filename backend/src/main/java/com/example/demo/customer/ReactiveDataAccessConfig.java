@@ -0,0 +1,47 @@
+package com.example.demo.customer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+
+/**
+ * Boot's R2DBC auto-configuration is excluded because a ConnectionFactory bean switches off the
+ * DataSource the blocking DAOs and Flyway need, so the pool is kept private to this config and
+ * only the DatabaseClient is exposed.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveDataAccessConfig implements DisposableBean {
+	private final ConnectionPool connectionPool;
+
+	public ReactiveDataAccessConfig(R2dbcProperties properties) {
+		R2dbcProperties.Pool pool = properties.getPool();
+		this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(
+						ConnectionFactoryBuilder.withUrl(properties.getUrl())
+								.username(properties.getUsername())
+								.password(properties.getPassword())
+								.build())
+				.initialSize(pool.getInitialSize())
+				.maxSize(pool.getMaxSize())
+				.maxIdleTime(pool.getMaxIdleTime())
+				.build());
+	}
+
+	@Bean
+	public DatabaseClient databaseClient() {
+		return DatabaseClient.create(connectionPool);
+	}
+
+	@Override
+	public void destroy() {
+		connectionPool.dispose();
+	}
+}
@@ -0,0 +1,222 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Serves point reads from an in-memory hot tier in front of the system of record. The hot tier is an
+ * id to row map holding at most a configured number of the most recently used rows. Rows enter it
+ * when read or written through this instance; writes go to the system of record first and are then
+ * applied to the hot tier, or evict the row when the outcome is unknown. Range reads, scans and
+ * email lookups always go to the system of record, which the hot tier only ever holds a subset of.
+ * Changes made by other instances are not seen, so run it where this instance owns the writes.
+ */
+public class TieredCustomerDao extends ForwardingCustomerDao {
+	private static final int LOCK_STRIPES = 64;
+
+	private final Cache<Long, Customer> hotTier;
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+	private final long[] generations = new long[LOCK_STRIPES];
+
+	public TieredCustomerDao(CustomerDao systemOfRecord, long maximumSize) {
+		super(systemOfRecord);
+		this.hotTier = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.recordStats()
+				.build();
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	public Cache<Long, Customer> getHotTier() {
+		return hotTier;
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		Optional<Customer> hot = hot(id);
+		if (hot.isPresent()) {
+			return hot;
+		}
+		int stripe = stripeFor(id);
+		long generation = generation(stripe);
+		Optional<Customer> customer = delegate.selectCustomerById(id);
+		// a write to the stripe since the read began may have already superseded this row
+		customer.ifPresent(c -> {
+			ReentrantLock lock = locks[stripe];
+			lock.lock();
+			try {
+				if (generations[stripe] == generation) {
+					put(c);
+				}
+			} finally {
+				lock.unlock();
+			}
+		});
+		return customer;
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		Customer hot = hotTier.getIfPresent(id);
+		return hot != null ? Optional.of(hot.getVersion()) : delegate.selectCustomerVersion(id);
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long customerId) {
+		return hotTier.getIfPresent(customerId) != null || delegate.existsPersonWithId(customerId);
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		Optional<Long> id = delegate.insertCustomer(customer);
+		id.ifPresent(i -> {
+			customer.setId(i);
+			customer.setVersion(Customer.INITIAL_VERSION);
+			write(i, () -> put(customer));
+		});
+		return id;
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		List<Customer> inserted = delegate.insertCustomers(customers);
+		inserted.forEach(c -> write(c.getId(), () -> put(c)));
+		return inserted;
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		Optional<Customer> updated = Optional.empty();
+		try {
+			updated = delegate.updateCustomer(update);
+			return updated;
+		} finally {
+			afterUpdate(update.getId(), updated);
+		}
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		Optional<CustomerChange> updated = Optional.empty();
+		try {
+			updated = delegate.updateCustomerReturningChange(update);
+			return updated;
+		} finally {
+			afterUpdate(update.getId(), updated.map(CustomerChange::current));
+		}
+	}
+
+	private void afterUpdate(Long id, Optional<Customer> updated) {
+		write(id, () -> {
+			if (updated.isPresent()) {
+				put(updated.get());
+			} else {
+				hotTier.invalidate(id);
+			}
+		});
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		try {
+			return delegate.deleteCustomer(customer);
+		} finally {
+			write(customer.getId(), () -> hotTier.invalidate(customer.getId()));
+		}
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		try {
+			return delegate.deleteCustomerReturningRow(customer);
+		} finally {
+			write(customer.getId(), () -> hotTier.invalidate(customer.getId()));
+		}
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		try {
+			return delegate.deleteCustomerById(customerId);
+		} finally {
+			write(customerId, () -> hotTier.invalidate(customerId));
+		}
+	}
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		try {
+			return delegate.deleteCustomersById(customerIds);
+		} finally {
+			customerIds.forEach(id -> write(id, () -> hotTier.invalidate(id)));
+		}
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		List<Customer> deleted = delegate.deleteCustomers(filter);
+		deleted.forEach(c -> write(c.getId(), () -> hotTier.invalidate(c.getId())));
+		return deleted;
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		// the outcomes carry no rows, so updated customers are evicted and read back on demand
+		try {
+			return delegate.updateCustomers(updates);
+		} finally {
+			updates.forEach(update -> write(update.getId(), () -> hotTier.invalidate(update.getId())));
+		}
+	}
+
+	// rows are copied in and out, so a caller changing a Customer it was given never changes the hot tier
+
+	private Optional<Customer> hot(Long id) {
+		return Optional.ofNullable(hotTier.getIfPresent(id)).map(TieredCustomerDao::copyOf);
+	}
+
+	private void put(Customer customer) {
+		hotTier.put(customer.getId(), copyOf(customer));
+	}
+
+	private void write(Long id, Runnable applyToHotTier) {
+		int stripe = stripeFor(id);
+		ReentrantLock lock = locks[stripe];
+		lock.lock();
+		try {
+			generations[stripe]++;
+			applyToHotTier.run();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private long generation(int stripe) {
+		ReentrantLock lock = locks[stripe];
+		lock.lock();
+		try {
+			return generations[stripe];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static int stripeFor(Long id) {
+		return Long.hashCode(id) & (LOCK_STRIPES - 1);
+	}
+
+	private static Customer copyOf(Customer customer) {
+		return new Customer(
+				customer.getId(),
+				customer.getName(),
+				customer.getEmail(),
+				customer.getAge(),
+				customer.getVersion()
+		);
+	}
+}
@@ -0,0 +1,145 @@
+package com.example.demo.customer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Inverted index from trigrams to ids, extracting trigrams the way pg_trgm does: lower case,
+ * alphanumeric words padded with two spaces in front and one behind. Each trigram is packed into
+ * a {@code long} so postings are keyed without building strings, and each posting list is a sorted
+ * {@code long[]}, about 8 bytes per id and trigram instead of a boxed set entry.
+ */
+final class TrigramIndex {
+	private final ConcurrentMap<Long, Postings> idsByTrigram = new ConcurrentHashMap<>();
+
+	void add(long id, String text) {
+		// postings are only created, changed and dropped inside compute, so a removal cannot lose an add
+		for (long trigram : trigrams(text)) {
+			idsByTrigram.compute(trigram, (t, postings) -> {
+				Postings ids = postings == null ? new Postings() : postings;
+				ids.add(id);
+				return ids;
+			});
+		}
+	}
+
+	void remove(long id, String text) {
+		for (long trigram : trigrams(text)) {
+			idsByTrigram.computeIfPresent(trigram, (t, ids) -> ids.remove(id) ? null : ids);
+		}
+	}
+
+	/**
+	 * @return the number of the given trigrams each id shares, for ids sharing at least {@code minimum}
+	 */
+	Map<Long, Integer> countShared(long[] trigrams, int minimum) {
+		Map<Long, Integer> counts = new HashMap<>();
+		for (long trigram : trigrams) {
+			Postings ids = idsByTrigram.get(trigram);
+			if (ids != null) {
+				ids.forEach(id -> counts.merge(id, 1, Integer::sum));
+			}
+		}
+		counts.values().removeIf(count -> count < minimum);
+		return counts;
+	}
+
+	/**
+	 * Share of the query's trigrams found in {@code text}, like pg_trgm's {@code word_similarity}
+	 * but over the whole text rather than its best matching extent.
+	 */
+	static double similarity(long[] query, String text) {
+		if (query.length == 0) {
+			return 0;
+		}
+		long[] target = trigrams(text);
+		int shared = 0;
+		for (long trigram : query) {
+			if (Arrays.binarySearch(target, trigram) >= 0) {
+				shared++;
+			}
+		}
+		return (double) shared / query.length;
+	}
+
+	/**
+	 * @return the distinct trigrams of {@code text}, sorted
+	 */
+	static long[] trigrams(String text) {
+		String lower = text.toLowerCase(Locale.ROOT);
+		long[] trigrams = new long[lower.length() * 3 + 3];
+		int count = 0;
+		int i = 0;
+		while (i < lower.length()) {
+			if (!Character.isLetterOrDigit(lower.charAt(i))) {
+				i++;
+				continue;
+			}
+			int end = i;
+			while (end < lower.length() && Character.isLetterOrDigit(lower.charAt(end))) {
+				end++;
+			}
+			// "  word " like pg_trgm
+			char a = ' ';
+			char b = ' ';
+			for (int j = i; j <= end; j++) {
+				char c = j < end ? lower.charAt(j) : ' ';
+				trigrams[count++] = (long) a << 32 | (long) b << 16 | c;
+				a = b;
+				b = c;
+			}
+			i = end;
+		}
+		return Arrays.stream(trigrams, 0, count).sorted().distinct().toArray();
+	}
+
+	/**
+	 * Sorted ids sharing one trigram. Ids mostly arrive in ascending order, so adding is usually an append.
+	 */
+	private static final class Postings {
+		private static final int INITIAL_CAPACITY = 4;
+
+		private long[] ids = new long[INITIAL_CAPACITY];
+		private int size;
+
+		synchronized void add(long id) {
+			int index = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				return;
+			}
+			int insertAt = -index - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+			}
+			System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+			ids[insertAt] = id;
+			size++;
+		}
+
+		/**
+		 * @return whether no ids are left
+		 */
+		synchronized boolean remove(long id) {
+			int index = Arrays.binarySearch(ids, 0, size, id);
+			if (index >= 0) {
+				System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+				size--;
+				if (size > INITIAL_CAPACITY && size < ids.length / 4) {
+					ids = Arrays.copyOf(ids, size * 2);
+				}
+			}
+			return size == 0;
+		}
+
+		synchronized void forEach(LongConsumer action) {
+			for (int i = 0; i < size; i++) {
+				action.accept(ids[i]);
+			}
+		}
+	}
+}
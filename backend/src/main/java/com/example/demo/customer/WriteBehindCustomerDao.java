@@ -0,0 +1,689 @@
+package com.example.demo.customer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionOperations;
+import com.example.demo.customer.CustomerWriteJournal.Entry;
+import com.example.demo.customer.CustomerWriteJournal.Operation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Acknowledges inserts, updates and deletes once they are in the local {@link CustomerWriteJournal},
+ * merges pending writes per customer id and flushes them to the database in one transaction on a
+ * schedule or when enough have queued up.
+ * <p>
+ * Ids come from blocks of {@code customer_id_seq} so an insert can return its id before the row exists.
+ * Email uniqueness is decided when a write is accepted, by reserving the email in memory and checking
+ * the database, so the flush never meets a clash as long as this instance is the only writer.
+ * Point reads overlay pending writes on the database; range reads flush first.
+ * <p>
+ * A flush that cannot reach the database is retried as a whole on the next run. Any other failure splits
+ * the batch into one transaction per customer, so a write the database refuses, such as an email another
+ * writer has taken since, cannot hold up the writes queued behind it. Such a write is set aside in a
+ * dead-letter journal next to the write journal when the failure is not transient, or once it has failed
+ * {@code maxAttempts} times.
+ */
+public class WriteBehindCustomerDao extends ForwardingCustomerDao implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindCustomerDao.class);
+	private static final int LOCK_STRIPES = 64;
+	private static final int ID_BLOCK_SIZE = 100;
+	private static final long BATCH_RESERVATION = -1L;
+	static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+	private final CustomerJDBCDataAccessService database;
+	private final CustomerWriteJournal journal;
+	private final CustomerWriteJournal deadLetters;
+	private final TransactionOperations transactionOperations;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final Map<Long, Integer> failedAttempts = new HashMap<>();
+	private final ScheduledExecutorService flusher;
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final ReentrantLock idLock = new ReentrantLock();
+	private final ReentrantLock[] customerLocks = new ReentrantLock[LOCK_STRIPES];
+	private final Deque<Long> ids = new ArrayDeque<>();
+	private final ConcurrentMap<String, Long> reservedEmails = new ConcurrentHashMap<>();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private volatile Map<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+	private volatile Map<Long, PendingWrite> flushing = Map.of();
+	private volatile long pendingSince;
+	private volatile long flushingSince;
+	private final Timer flushTimer;
+	private final Counter dropped;
+	private final Counter flushFailures;
+	private final Counter deadLettered;
+
+	public WriteBehindCustomerDao(
+			CustomerJDBCDataAccessService database,
+			Path journalDirectory,
+			TransactionOperations transactionOperations,
+			Duration flushInterval,
+			int batchSize,
+			int maxAttempts,
+			MeterRegistry meterRegistry
+	) {
+		super(database);
+		this.database = database;
+		this.journal = new CustomerWriteJournal(journalDirectory);
+		this.deadLetters = new CustomerWriteJournal(journalDirectory.resolve(DEAD_LETTER_DIRECTORY));
+		this.transactionOperations = transactionOperations;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		for (int i = 0; i < customerLocks.length; i++) {
+			customerLocks[i] = new ReentrantLock();
+		}
+		try {
+			// writes acknowledged before a restart are queued again and go out with the first flush
+			for (Entry entry : journal.open()) {
+				PendingWrite write = PendingWrite.of(entry);
+				write.emails().forEach(email -> reservedEmails.put(email, write.customer().getId()));
+				enqueue(write);
+			}
+			// dead letters are only ever appended here; they are read by whoever repairs them
+			deadLetters.open();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		Gauge.builder("customer.write-behind.queue.depth", this, WriteBehindCustomerDao::queueDepth)
+				.description("Customer writes acknowledged but not yet in the database")
+				.register(meterRegistry);
+		Gauge.builder("customer.write-behind.lag", this, WriteBehindCustomerDao::lagSeconds)
+				.description("Age of the oldest customer write not yet in the database")
+				.baseUnit("seconds")
+				.register(meterRegistry);
+		this.flushTimer = meterRegistry.timer("customer.write-behind.flush");
+		this.dropped = meterRegistry.counter("customer.write-behind.dropped");
+		this.flushFailures = meterRegistry.counter("customer.write-behind.flush.failures");
+		this.deadLettered = meterRegistry.counter("customer.write-behind.dead-lettered");
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "customer-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(
+				this::flushQuietly,
+				flushInterval.toMillis(),
+				flushInterval.toMillis(),
+				TimeUnit.MILLISECONDS
+		);
+	}
+
+	@Override
+	public List<Customer> selectAllCustomers() {
+		flush();
+		return delegate.selectAllCustomers();
+	}
+
+	@Override
+	public List<Customer> selectCustomers(Long afterId, int limit) {
+		flush();
+		return delegate.selectCustomers(afterId, limit);
+	}
+
+	@Override
+	public List<Customer> searchCustomers(CustomerSearch search) {
+		flush();
+		return delegate.searchCustomers(search);
+	}
+
+	@Override
+	public List<CustomerMatch> fuzzySearchCustomers(String query, int limit) {
+		flush();
+		return delegate.fuzzySearchCustomers(query, limit);
+	}
+
+	@Override
+	public CustomerCounts countCustomers() {
+		flush();
+		return delegate.countCustomers();
+	}
+
+	@Override
+	public void forEachCustomer(Consumer<CustomerView> action) {
+		flush();
+		delegate.forEachCustomer(action);
+	}
+
+	@Override
+	public Optional<Customer> selectCustomerById(Long id) {
+		// pending before flushing: a flush publishes its snapshot as flushing before it empties pending
+		Map<Long, PendingWrite> newer = pending;
+		Map<Long, PendingWrite> older = flushing;
+		Customer customer = null;
+		boolean known = false;
+		for (Map<Long, PendingWrite> writes : List.of(older, newer)) {
+			PendingWrite write = writes.get(id);
+			if (write == null) {
+				continue;
+			}
+			switch (write.operation()) {
+				case INSERT -> customer = copyOf(write.customer());
+				case UPDATE -> {
+					if (!known) {
+						customer = delegate.selectCustomerById(id).orElse(null);
+					}
+					if (customer != null) {
+						customer.applyUpdate(write.customer());
+						customer.setVersion(write.customer().getVersion());
+					}
+				}
+				case DELETE -> customer = null;
+			}
+			known = true;
+		}
+		return known ? Optional.ofNullable(customer) : delegate.selectCustomerById(id);
+	}
+
+	@Override
+	public Optional<Long> selectCustomerVersion(Long id) {
+		PendingWrite write = latestWrite(id);
+		if (write == null) {
+			return delegate.selectCustomerVersion(id);
+		}
+		return write.operation() == Operation.DELETE ? Optional.empty() : Optional.of(write.customer().getVersion());
+	}
+
+	@Override
+	public boolean existsPersonWithId(Long customerId) {
+		PendingWrite write = latestWrite(customerId);
+		if (write != null) {
+			return write.operation() != Operation.DELETE;
+		}
+		return delegate.existsPersonWithId(customerId);
+	}
+
+	@Override
+	public boolean existsPersonWithEmail(String email) {
+		return reservedEmails.containsKey(email) || delegate.existsPersonWithEmail(email);
+	}
+
+	@Override
+	public Optional<Long> insertCustomer(Customer customer) {
+		if (customer.getName() == null || customer.getEmail() == null || customer.getAge() == null) {
+			throw new DataIntegrityViolationException("customer name, email and age are required");
+		}
+		Long id = nextId();
+		if (!reserveEmail(customer.getEmail(), id)) {
+			return Optional.empty();
+		}
+		append(new Entry(Operation.INSERT, new Customer(
+				id,
+				customer.getName(),
+				customer.getEmail(),
+				customer.getAge(),
+				Customer.INITIAL_VERSION
+		)));
+		customer.setId(id);
+		customer.setVersion(Customer.INITIAL_VERSION);
+		return Optional.of(id);
+	}
+
+	@Override
+	public List<Customer> insertCustomers(List<Customer> customers) {
+		// bulk registration is already one statement per chunk, so it goes straight to the database;
+		// the reservations only keep it from taking an email a queued write has been promised
+		List<Customer> accepted = new ArrayList<>(customers.size());
+		for (Customer customer : customers) {
+			if (reservedEmails.putIfAbsent(customer.getEmail(), BATCH_RESERVATION) == null) {
+				accepted.add(customer);
+			}
+		}
+		try {
+			return delegate.insertCustomers(accepted);
+		} finally {
+			accepted.forEach(customer -> reservedEmails.remove(customer.getEmail(), BATCH_RESERVATION));
+		}
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Customer update) {
+		return updateCustomerReturningChange(update).map(CustomerChange::current);
+	}
+
+	@Override
+	public Optional<CustomerChange> updateCustomerReturningChange(Customer update) {
+		ReentrantLock lock = lockFor(update.getId());
+		lock.lock();
+		try {
+			Optional<Customer> current = selectCustomerById(update.getId());
+			if (current.isEmpty()
+					|| update.getVersion() != null && !update.getVersion().equals(current.get().getVersion())) {
+				return Optional.empty();
+			}
+			Customer previous = current.get();
+			Customer updated = copyOf(previous);
+			String email = updated.getEmail();
+			if (!updated.applyUpdate(update)) {
+				return Optional.empty();
+			}
+			updated.setVersion(updated.getVersion() + 1);
+			if (!updated.getEmail().equals(email) && !reserveEmail(updated.getEmail(), updated.getId())) {
+				throw new DuplicateKeyException("email already taken");
+			}
+			append(new Entry(Operation.UPDATE, new Customer(
+					updated.getId(),
+					update.getName(),
+					updated.getEmail().equals(email) ? null : updated.getEmail(),
+					update.getAge(),
+					updated.getVersion()
+			)));
+			return Optional.of(new CustomerChange(previous, updated));
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public int deleteCustomer(Customer customer) {
+		return delete(customer.getId(), customer.getVersion());
+	}
+
+	@Override
+	public int deleteCustomerById(Long customerId) {
+		return delete(customerId, null);
+	}
+
+	@Override
+	public Optional<Customer> deleteCustomerReturningRow(Customer customer) {
+		ReentrantLock lock = lockFor(customer.getId());
+		lock.lock();
+		try {
+			Optional<Customer> visible = selectCustomerById(customer.getId())
+					.filter(c -> customer.getVersion() == null || customer.getVersion().equals(c.getVersion()));
+			visible.ifPresent(c -> append(new Entry(Operation.DELETE, new Customer(c.getId(), null, null, null))));
+			return visible;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private int delete(Long customerId, Long version) {
+		ReentrantLock lock = lockFor(customerId);
+		lock.lock();
+		try {
+			// the delete is acknowledged before it reaches the database, so the count comes from what is visible now
+			boolean visible = version == null
+					? existsPersonWithId(customerId)
+					: selectCustomerVersion(customerId).filter(version::equals).isPresent();
+			if (!visible) {
+				return 0;
+			}
+			append(new Entry(Operation.DELETE, new Customer(customerId, null, null, null)));
+			return 1;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// bulk writes are single statements against the database, so they see every write acknowledged before them
+
+	@Override
+	public List<Customer> deleteCustomersById(List<Long> customerIds) {
+		flush();
+		return delegate.deleteCustomersById(customerIds);
+	}
+
+	@Override
+	public List<Customer> deleteCustomers(CustomerSearch filter) {
+		flush();
+		return delegate.deleteCustomers(filter);
+	}
+
+	@Override
+	public List<CustomerBulkResult> updateCustomers(List<Customer> updates) {
+		flush();
+		return delegate.updateCustomers(updates);
+	}
+
+	/**
+	 * Writes everything acknowledged so far to the database.
+	 */
+	public void flush() {
+		flushLock.lock();
+		try {
+			Map<Long, PendingWrite> snapshot;
+			long segment;
+			writeLock.lock();
+			try {
+				if (pending.isEmpty()) {
+					return;
+				}
+				segment = journal.rotate();
+				snapshot = pending;
+				flushing = snapshot;
+				flushingSince = pendingSince;
+				pending = new ConcurrentHashMap<>();
+				pendingSince = 0;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				writeLock.unlock();
+			}
+
+			try {
+				flushTimer.record(() -> write(snapshot));
+			} catch (RuntimeException e) {
+				flushFailures.increment();
+				if (isUnavailable(e)) {
+					requeue(snapshot);
+					throw e;
+				}
+				writeOneByOne(snapshot);
+			}
+			snapshot.values().forEach(this::release);
+			failedAttempts.clear();
+			flushing = Map.of();
+			flushingSince = 0;
+			try {
+				journal.deleteThrough(segment);
+			} catch (IOException e) {
+				// replaying already flushed writes is harmless, the rows are simply written again
+				LOGGER.warn("Could not delete flushed customer journal segments", e);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(30, TimeUnit.SECONDS);
+			flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			// the writes are still in the journal and are replayed on the next start
+			LOGGER.warn("Could not flush queued customer writes on shutdown", e);
+		} finally {
+			journal.close();
+			deadLetters.close();
+		}
+	}
+
+	private void write(Map<Long, PendingWrite> snapshot) {
+		List<Customer> inserts = new ArrayList<>();
+		List<Customer> updates = new ArrayList<>();
+		List<Long> deletes = new ArrayList<>();
+		for (PendingWrite write : snapshot.values()) {
+			switch (write.operation()) {
+				case INSERT -> inserts.add(write.customer());
+				case UPDATE -> updates.add(write.customer());
+				case DELETE -> deletes.add(write.customer().getId());
+			}
+		}
+		transactionOperations.executeWithoutResult(status -> {
+			if (!inserts.isEmpty()) {
+				int inserted = database.insertCustomersWithIds(inserts).size();
+				if (inserted < inserts.size()) {
+					// only another writer on the same table can take an id or email accepted here
+					dropped.increment(inserts.size() - inserted);
+					LOGGER.error("Dropped {} acknowledged customer inserts that clashed with existing rows",
+							inserts.size() - inserted);
+				}
+			}
+			if (!updates.isEmpty()) {
+				database.applyUpdates(updates);
+			}
+			if (!deletes.isEmpty()) {
+				database.deleteCustomersById(deletes);
+			}
+		});
+	}
+
+	/**
+	 * Writes each customer of a failed batch in a transaction of its own, setting aside the writes the
+	 * database refuses. Whatever is left is queued again and the failure that kept it is thrown.
+	 */
+	private void writeOneByOne(Map<Long, PendingWrite> snapshot) {
+		Map<Long, PendingWrite> unwritten = new HashMap<>(snapshot);
+		RuntimeException failure = null;
+		for (Map.Entry<Long, PendingWrite> entry : snapshot.entrySet()) {
+			Long id = entry.getKey();
+			PendingWrite write = entry.getValue();
+			try {
+				write(Map.of(id, write));
+			} catch (RuntimeException e) {
+				if (isUnavailable(e)) {
+					failure = e;
+					break;
+				}
+				int attempts = failedAttempts.merge(id, 1, Integer::sum);
+				if (!(e instanceof NonTransientDataAccessException) && attempts < maxAttempts) {
+					failure = e;
+					continue;
+				}
+				deadLetter(write, e);
+			}
+			unwritten.remove(id);
+			failedAttempts.remove(id);
+		}
+		if (failure == null) {
+			return;
+		}
+		snapshot.forEach((id, write) -> {
+			if (!unwritten.containsKey(id)) {
+				release(write);
+			}
+		});
+		// the rotated journal segment still holds the unwritten records, and is kept until a later flush succeeds
+		requeue(unwritten);
+		throw failure;
+	}
+
+	private void deadLetter(PendingWrite write, RuntimeException failure) {
+		deadLettered.increment();
+		LOGGER.error("Set aside queued {} of customer [{}] that the database refuses",
+				write.operation(), write.customer().getId(), failure);
+		try {
+			deadLetters.sync(deadLetters.append(new Entry(write.operation(), write.customer())));
+		} catch (IOException e) {
+			LOGGER.error("Could not record dead letter for customer [{}]", write.customer().getId(), e);
+		}
+	}
+
+	private void release(PendingWrite write) {
+		write.emails().forEach(email -> reservedEmails.remove(email, write.customer().getId()));
+	}
+
+	/**
+	 * @return whether the database could not be reached at all, so every other write would fail the same way
+	 */
+	private static boolean isUnavailable(RuntimeException e) {
+		return e instanceof DataAccessResourceFailureException
+				|| e instanceof TransientDataAccessResourceException
+				|| e instanceof CannotCreateTransactionException;
+	}
+
+	private void flushQuietly() {
+		flushRequested.set(false);
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			LOGGER.error("Customer write-behind flush failed, retrying on the next run", e);
+		}
+	}
+
+	private void append(Entry entry) {
+		long position;
+		writeLock.lock();
+		try {
+			position = journal.append(entry);
+			enqueue(PendingWrite.of(entry));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+		try {
+			journal.sync(position);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(this::flushQuietly);
+		}
+	}
+
+	private void enqueue(PendingWrite write) {
+		Long id = write.customer().getId();
+		if (pending.isEmpty()) {
+			pendingSince = System.nanoTime();
+		}
+		PendingWrite older = pending.get(id);
+		PendingWrite merged = older == null ? write : older.then(write);
+		if (merged == null) {
+			pending.remove(id);
+			older.emails().forEach(email -> reservedEmails.remove(email, id));
+		} else {
+			pending.put(id, merged);
+		}
+	}
+
+	private void requeue(Map<Long, PendingWrite> snapshot) {
+		writeLock.lock();
+		try {
+			Map<Long, PendingWrite> newer = pending;
+			Map<Long, PendingWrite> merged = new ConcurrentHashMap<>(snapshot);
+			newer.forEach((id, write) -> {
+				PendingWrite older = merged.get(id);
+				PendingWrite combined = older == null ? write : older.then(write);
+				if (combined == null) {
+					merged.remove(id);
+					older.emails().forEach(email -> reservedEmails.remove(email, id));
+				} else {
+					merged.put(id, combined);
+				}
+			});
+			pending = merged;
+			pendingSince = flushingSince;
+			flushing = Map.of();
+			flushingSince = 0;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private boolean reserveEmail(String email, Long id) {
+		Long holder = reservedEmails.putIfAbsent(email, id);
+		if (holder != null) {
+			return holder.equals(id);
+		}
+		if (delegate.existsPersonWithEmail(email)) {
+			reservedEmails.remove(email, id);
+			return false;
+		}
+		return true;
+	}
+
+	private Long nextId() {
+		idLock.lock();
+		try {
+			if (ids.isEmpty()) {
+				ids.addAll(database.nextCustomerIds(ID_BLOCK_SIZE));
+			}
+			return ids.poll();
+		} finally {
+			idLock.unlock();
+		}
+	}
+
+	private PendingWrite latestWrite(Long id) {
+		PendingWrite write = pending.get(id);
+		return write != null ? write : flushing.get(id);
+	}
+
+	private ReentrantLock lockFor(Long id) {
+		return customerLocks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+	}
+
+	private int queueDepth() {
+		return pending.size() + flushing.size();
+	}
+
+	private double lagSeconds() {
+		long oldest = flushingSince != 0 ? flushingSince : pendingSince;
+		return oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1e9;
+	}
+
+	private static Customer copyOf(Customer customer) {
+		return new Customer(
+				customer.getId(),
+				customer.getName(),
+				customer.getEmail(),
+				customer.getAge(),
+				customer.getVersion()
+		);
+	}
+
+	/**
+	 * The merged state of the queued writes for one customer, plus the emails they reserved.
+	 */
+	private record PendingWrite(Operation operation, Customer customer, Set<String> emails) {
+
+		static PendingWrite of(Entry entry) {
+			Customer customer = entry.customer();
+			return new PendingWrite(
+					entry.operation(),
+					copyOf(customer),
+					customer.getEmail() == null ? Set.of() : Set.of(customer.getEmail())
+			);
+		}
+
+		/**
+		 * @return the combined write, or null when an unflushed insert is deleted again
+		 */
+		PendingWrite then(PendingWrite newer) {
+			Set<String> reserved = new HashSet<>(emails);
+			reserved.addAll(newer.emails);
+			return switch (newer.operation) {
+				case DELETE -> operation == Operation.INSERT
+						? null
+						: new PendingWrite(Operation.DELETE, newer.customer, reserved);
+				case UPDATE -> {
+					Customer merged = copyOf(customer);
+					merged.applyUpdate(newer.customer);
+					merged.setVersion(newer.customer.getVersion());
+					yield new PendingWrite(operation, merged, reserved);
+				}
+				case INSERT -> throw new IllegalStateException(
+						"customer [%d] inserted twice".formatted(customer.getId()));
+			};
+		}
+	}
+}
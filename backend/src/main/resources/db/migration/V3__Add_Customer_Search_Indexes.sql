@@ -0,0 +1,5 @@
+CREATE INDEX customer_name_prefix_idx ON customer (lower(name) text_pattern_ops);
+
+CREATE INDEX customer_email_domain_idx ON customer (lower(split_part(email, '@', 2)));
+
+CREATE INDEX customer_age_id_idx ON customer (age, id);
@@ -0,0 +1,6 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- without the pending list, searches never have to scan recently inserted rows linearly
+CREATE INDEX customer_name_trgm_idx ON customer USING GIN (lower(name) gin_trgm_ops) WITH (fastupdate = off);
+
+CREATE INDEX customer_email_trgm_idx ON customer USING GIN (lower(email) gin_trgm_ops) WITH (fastupdate = off);
@@ -4,7 +4,9 @@ import javax.sql.DataSource;
 import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.BeforeAll;
 import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
@@ -60,6 +62,18 @@ public abstract class AbstractTestContainers {
 		return  new JdbcTemplate(getDataSource());
 	}
 
+	protected static DatabaseClient getDatabaseClient(){
+		return DatabaseClient.create(
+				ConnectionFactoryBuilder.withUrl("r2dbc:postgresql://%s:%d/%s".formatted(
+								postgreSQLContainer.getHost(),
+								postgreSQLContainer.getFirstMappedPort(),
+								postgreSQLContainer.getDatabaseName()))
+						.username(postgreSQLContainer.getUsername())
+						.password(postgreSQLContainer.getPassword())
+						.build()
+		);
+	}
+
 	protected static final Faker FAKER = new Faker();
 
 }
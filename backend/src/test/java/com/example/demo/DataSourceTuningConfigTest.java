@@ -0,0 +1,44 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.mock.env.MockEnvironment;
+import com.zaxxer.hikari.HikariDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceTuningConfigTest {
+
+	@Test
+	void poolIsSizedFromAvailableCores() {
+		//Given
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty("customer.datasource.connections-per-core", "3");
+		BeanPostProcessor underTest = DataSourceTuningConfig.hikariPoolSizing(environment);
+		HikariDataSource dataSource = new HikariDataSource();
+
+		//When
+		underTest.postProcessBeforeInitialization(dataSource, "dataSource");
+
+		//Then
+		int expected = Runtime.getRuntime().availableProcessors() * 3 + 1;
+		assertThat(dataSource.getMaximumPoolSize()).isEqualTo(expected);
+		assertThat(dataSource.getMinimumIdle()).isEqualTo(expected);
+	}
+
+	@Test
+	void explicitPoolSizeIsKept() {
+		//Given
+		MockEnvironment environment = new MockEnvironment()
+				.withProperty(DataSourceTuningConfig.MAXIMUM_POOL_SIZE, "7");
+		BeanPostProcessor underTest = DataSourceTuningConfig.hikariPoolSizing(environment);
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setMaximumPoolSize(7);
+
+		//When
+		underTest.postProcessBeforeInitialization(dataSource, "dataSource");
+
+		//Then
+		assertThat(dataSource.getMaximumPoolSize()).isEqualTo(7);
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.demo;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.StatementType;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLoggerTest {
+
+	@Test
+	void statementUnderThresholdIsNotLogged() {
+		//Given
+		SlowQueryLogger underTest = new SlowQueryLogger(Duration.ofMillis(100), 1.0, () -> 0.0);
+
+		//When
+		boolean actual = underTest.isLogged(executionTaking(99));
+
+		//Then
+		assertThat(actual).isFalse();
+	}
+
+	@Test
+	void statementAtThresholdIsLogged() {
+		//Given
+		SlowQueryLogger underTest = new SlowQueryLogger(Duration.ofMillis(100), 1.0, () -> 0.99);
+
+		//When
+		boolean actual = underTest.isLogged(executionTaking(100));
+
+		//Then
+		assertThat(actual).isTrue();
+	}
+
+	@Test
+	void slowStatementOutsideSampleIsNotLogged() {
+		//Given
+		SlowQueryLogger underTest = new SlowQueryLogger(Duration.ofMillis(100), 0.1, () -> 0.5);
+
+		//When
+		boolean actual = underTest.isLogged(executionTaking(500));
+
+		//Then
+		assertThat(actual).isFalse();
+	}
+
+	@Test
+	void shortEntryIsFormattedLikeTheDefaultCreator() throws Exception {
+		//Given
+		ExecutionInfo execInfo = preparedExecution();
+		List<QueryInfo> queries = List.of(queryBinding(
+				List.of(setString(2, "alex@gmail.com"), setString(1, "Alex")),
+				List.of(setString(1, "Bob"), setString(2, "bob@gmail.com"))
+		));
+		SlowQueryLogger.BoundedQueryLogEntryCreator underTest = new SlowQueryLogger.BoundedQueryLogEntryCreator(4096);
+
+		//When
+		String actual = underTest.getLogEntry(execInfo, queries, true, false, false);
+
+		//Then
+		assertThat(actual).isEqualTo(new DefaultQueryLogEntryCreator().getLogEntry(execInfo, queries, true, false, false));
+	}
+
+	@Test
+	void parametersPastTheLimitAreNotFormatted() throws Exception {
+		//Given
+		List<List<ParameterSetOperation>> batch = new ArrayList<>();
+		List<Object> formatted = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			int row = i;
+			Object name = new Object() {
+				@Override
+				public String toString() {
+					formatted.add(this);
+					return "name-" + row;
+				}
+			};
+			batch.add(List.of(new ParameterSetOperation(
+					PreparedStatement.class.getMethod("setObject", int.class, Object.class), new Object[]{1, name}
+			)));
+		}
+		SlowQueryLogger.BoundedQueryLogEntryCreator underTest = new SlowQueryLogger.BoundedQueryLogEntryCreator(100);
+
+		//When
+		String actual = underTest.getLogEntry(preparedExecution(), List.of(queryBinding(batch)), true, false, false);
+
+		//Then
+		assertThat(actual).endsWith("...]");
+		assertThat(actual.length()).isLessThan(200);
+		assertThat(formatted.size()).isLessThan(20);
+	}
+
+	private static ExecutionInfo preparedExecution() {
+		ExecutionInfo execInfo = executionTaking(500);
+		execInfo.setStatementType(StatementType.PREPARED);
+		execInfo.setSuccess(true);
+		return execInfo;
+	}
+
+	@SafeVarargs
+	private static QueryInfo queryBinding(List<ParameterSetOperation>... parameterSets) {
+		return queryBinding(List.of(parameterSets));
+	}
+
+	private static QueryInfo queryBinding(List<List<ParameterSetOperation>> parameterSets) {
+		QueryInfo queryInfo = new QueryInfo("INSERT INTO customer(name, email) VALUES (?, ?)");
+		parameterSets.forEach(parameters -> queryInfo.getParametersList().add(parameters));
+		return queryInfo;
+	}
+
+	private static ParameterSetOperation setString(int index, String value) throws Exception {
+		return new ParameterSetOperation(
+				PreparedStatement.class.getMethod("setString", int.class, String.class), new Object[]{index, value}
+		);
+	}
+
+	private static ExecutionInfo executionTaking(long millis) {
+		ExecutionInfo executionInfo = new ExecutionInfo();
+		executionInfo.setElapsedTime(millis);
+		return executionInfo;
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.demo.customer;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class AggregatingCustomerDaoTest {
+	private CustomerListDataAccessService delegate;
+	private CustomerAggregates aggregates;
+	private AggregatingCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		delegate = new CustomerListDataAccessService(false);
+		aggregates = new CustomerAggregates(delegate, Duration.ofHours(1), new SimpleMeterRegistry());
+		underTest = new AggregatingCustomerDao(delegate, aggregates);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		aggregates.close();
+	}
+
+	@Test
+	void reconcileReplacesCountsWithBackendCounts() {
+		//Given
+		delegate.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+		delegate.insertCustomer(new Customer("Jamila", "jamila@Gmail.com", 25));
+
+		//When
+		aggregates.reconcile();
+		CustomerStatistics actual = aggregates.statistics(10);
+
+		//Then
+		assertThat(actual.customers()).isEqualTo(2);
+		assertThat(actual.ageHistogram()).containsExactly(
+				new CustomerStatistics.AgeBucket(10, 19, 1),
+				new CustomerStatistics.AgeBucket(20, 29, 1)
+		);
+		assertThat(actual.emailDomains()).containsExactly(new CustomerStatistics.EmailDomain("gmail.com", 2));
+		assertThat(actual.reconciledAt()).isNotNull();
+	}
+
+	@Test
+	void insertsAndDeletesAreCountedWithoutReconciling() {
+		//Given
+		underTest.insertCustomers(List.of(
+				new Customer("Alex", "alex@gmail.com", 19),
+				new Customer("Jamila", "jamila@amigoscode.com", 25)
+		));
+		long id = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 31)).orElseThrow();
+
+		//When
+		underTest.deleteCustomerById(id);
+		underTest.deleteCustomerById(id);
+		CustomerStatistics actual = aggregates.statistics(10);
+
+		//Then
+		assertThat(actual.customers()).isEqualTo(2);
+		assertThat(actual.ageHistogram()).extracting(CustomerStatistics.AgeBucket::from).containsExactly(10, 20);
+		assertThat(actual.emailDomains()).containsExactly(
+				new CustomerStatistics.EmailDomain("amigoscode.com", 1),
+				new CustomerStatistics.EmailDomain("gmail.com", 1)
+		);
+		assertThat(actual.reconciledAt()).isNull();
+	}
+
+	@Test
+	void updateMovesCustomerBetweenAgeBucketsAndDomains() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19)).orElseThrow();
+
+		//When
+		underTest.updateCustomer(new Customer(id, null, "alex@amigoscode.com", 42));
+		CustomerStatistics actual = aggregates.statistics(10);
+
+		//Then
+		assertThat(actual.customers()).isEqualTo(1);
+		assertThat(actual.ageHistogram()).containsExactly(new CustomerStatistics.AgeBucket(40, 49, 1));
+		assertThat(actual.emailDomains()).containsExactly(new CustomerStatistics.EmailDomain("amigoscode.com", 1));
+	}
+
+	@Test
+	void deletesAndUpdatesTakeTheReplacedRowFromTheWrite() {
+		//Given
+		CustomerListDataAccessService backend = spy(new CustomerListDataAccessService(false));
+		underTest = new AggregatingCustomerDao(backend, aggregates);
+		long alex = underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19)).orElseThrow();
+		long jamila = underTest.insertCustomer(new Customer("Jamila", "jamila@gmail.com", 25)).orElseThrow();
+
+		//When
+		underTest.updateCustomer(new Customer(alex, null, "alex@amigoscode.com", 42));
+		underTest.deleteCustomerById(jamila);
+		CustomerStatistics actual = aggregates.statistics(10);
+
+		//Then
+		assertThat(actual.customers()).isEqualTo(1);
+		assertThat(actual.emailDomains()).containsExactly(new CustomerStatistics.EmailDomain("amigoscode.com", 1));
+		verify(backend).updateCustomerReturningChange(new Customer(alex, null, "alex@amigoscode.com", 42));
+		verify(backend).deleteCustomerReturningRow(new Customer(jamila, null, null, null));
+	}
+
+	@Test
+	void statisticsKeepOnlyTheLargestDomains() {
+		//Given
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+		underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 19));
+		underTest.insertCustomer(new Customer("Jamila", "jamila@amigoscode.com", 25));
+		underTest.insertCustomer(new Customer("Bob", "bob@amigoscode.com", 25));
+		underTest.insertCustomer(new Customer("Bilal", "bilal@amigoscode.com", 25));
+		underTest.insertCustomer(new Customer("Mia", "mia@yahoo.com", 25));
+
+		//When
+		CustomerStatistics actual = aggregates.statistics(2);
+
+		//Then
+		assertThat(actual.emailDomains()).containsExactly(
+				new CustomerStatistics.EmailDomain("amigoscode.com", 3),
+				new CustomerStatistics.EmailDomain("gmail.com", 2)
+		);
+	}
+}
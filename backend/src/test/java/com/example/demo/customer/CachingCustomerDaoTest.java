@@ -0,0 +1,146 @@
+package com.example.demo.customer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingCustomerDaoTest {
+	@Mock
+	private CustomerDao delegate;
+	private CachingCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new CachingCustomerDao(delegate, 100, Duration.ofMinutes(5));
+	}
+
+	@Test
+	void selectCustomerByIdIsServedFromCache() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+		//When
+		underTest.selectCustomerById(id);
+		Optional<Customer> actual = underTest.selectCustomerById(id);
+
+		//Then
+		assertThat(actual).contains(customer);
+		verify(delegate, times(1)).selectCustomerById(id);
+		assertThat(underTest.getCustomersById().synchronous().stats().hitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void selectCustomerVersionBypassesCache() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		customer.setVersion(Customer.INITIAL_VERSION);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		when(delegate.selectCustomerVersion(id)).thenReturn(Optional.of(Customer.INITIAL_VERSION + 1));
+		underTest.selectCustomerById(id);
+
+		//When
+		Optional<Long> actual = underTest.selectCustomerVersion(id);
+
+		//Then
+		assertThat(actual).contains(Customer.INITIAL_VERSION + 1);
+	}
+
+	@Test
+	void missingCustomerIsNotCached() {
+		//Given
+		long id = 1;
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.empty());
+
+		//When
+		underTest.selectCustomerById(id);
+		Optional<Customer> actual = underTest.selectCustomerById(id);
+
+		//Then
+		assertThat(actual).isEmpty();
+		verify(delegate, times(2)).selectCustomerById(id);
+	}
+
+	@Test
+	void existsPersonWithEmailIsAnsweredByCachedCustomer() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		underTest.selectCustomerById(id);
+
+		//When
+		boolean actual = underTest.existsPersonWithEmail(customer.getEmail());
+
+		//Then
+		assertThat(actual).isTrue();
+		verify(delegate, never()).existsPersonWithEmail(customer.getEmail());
+	}
+
+	@Test
+	void updateCustomerInvalidatesIdAndEmail() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		underTest.selectCustomerById(id);
+		Customer update = new Customer(id, null, "alexandro@gmail.com", null);
+
+		//When
+		underTest.updateCustomer(update);
+
+		//Then
+		verify(delegate).updateCustomer(update);
+		assertThat(underTest.getCustomersById().getIfPresent(id)).isNull();
+		assertThat(underTest.getCustomerIdsByEmail().getIfPresent(customer.getEmail())).isNull();
+	}
+
+	@Test
+	void deleteCustomerByIdInvalidatesIdAndEmail() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		underTest.selectCustomerById(id);
+
+		//When
+		underTest.deleteCustomerById(id);
+
+		//Then
+		verify(delegate).deleteCustomerById(id);
+		assertThat(underTest.getCustomersById().getIfPresent(id)).isNull();
+		assertThat(underTest.getCustomerIdsByEmail().getIfPresent(customer.getEmail())).isNull();
+	}
+
+	@Test
+	void deleteCustomersByFilterInvalidatesDeletedRows() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(delegate.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		underTest.selectCustomerById(id);
+		CustomerSearch filter = new CustomerSearch("Alex", null, null, null, CustomerSearch.Sort.ID, false, 0, 10);
+		when(delegate.deleteCustomers(filter)).thenReturn(List.of(customer));
+
+		//When
+		underTest.deleteCustomers(filter);
+
+		//Then
+		assertThat(underTest.getCustomersById().getIfPresent(id)).isNull();
+		assertThat(underTest.getCustomerIdsByEmail().getIfPresent(customer.getEmail())).isNull();
+	}
+}
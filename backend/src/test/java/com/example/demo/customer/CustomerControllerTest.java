@@ -0,0 +1,76 @@
+package com.example.demo.customer;
+
+import org.junit.jupiter.api.Test;
+import com.example.demo.exception.PreconditionFailedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerControllerTest {
+
+	@Test
+	void versionOfStrongTag() {
+		//When
+		Long actual = CustomerController.versionOf("\"3\"");
+
+		//Then
+		assertThat(actual).isEqualTo(3L);
+	}
+
+	@Test
+	void versionOfBinaryFormatTag() {
+		//When
+		//Then
+		assertThat(CustomerController.versionOf("\"3-smile\"")).isEqualTo(3L);
+		assertThat(CustomerController.versionOf("\"3-cbor\"")).isEqualTo(3L);
+	}
+
+	@Test
+	void tagSuffixFollowsMostPreferredFormat() {
+		//When
+		//Then
+		assertThat(CustomerController.tagSuffixOf(null)).isEmpty();
+		assertThat(CustomerController.tagSuffixOf("*/*")).isEmpty();
+		assertThat(CustomerController.tagSuffixOf("application/json")).isEmpty();
+		assertThat(CustomerController.tagSuffixOf("application/x-jackson-smile")).isEqualTo("-smile");
+		assertThat(CustomerController.tagSuffixOf("application/json;q=0.5, application/cbor")).isEqualTo("-cbor");
+		assertThat(CustomerController.tagSuffixOf("application/cbor;q=0, */*")).isEmpty();
+		assertThat(CustomerController.tagSuffixOf("not a media type")).isEmpty();
+	}
+
+	@Test
+	void versionOfMissingOrWildcardIsUnconditional() {
+		//When
+		//Then
+		assertThat(CustomerController.versionOf(null)).isNull();
+		assertThat(CustomerController.versionOf(" ")).isNull();
+		assertThat(CustomerController.versionOf(" * ")).isNull();
+	}
+
+	@Test
+	void versionOfWeakTagFails() {
+		//When
+		//Then
+		assertThatThrownBy(() -> CustomerController.versionOf("W/\"3\""))
+				.isInstanceOf(PreconditionFailedException.class)
+				.hasMessage("If-Match must be a single tag returned by this API");
+	}
+
+	@Test
+	void versionOfTagListFails() {
+		//When
+		//Then
+		assertThatThrownBy(() -> CustomerController.versionOf("\"3\", \"4\""))
+				.isInstanceOf(PreconditionFailedException.class);
+	}
+
+	@Test
+	void versionOfForeignTagFails() {
+		//When
+		//Then
+		assertThatThrownBy(() -> CustomerController.versionOf("\"abc\""))
+				.isInstanceOf(PreconditionFailedException.class);
+		assertThatThrownBy(() -> CustomerController.versionOf("\"\""))
+				.isInstanceOf(PreconditionFailedException.class);
+	}
+}
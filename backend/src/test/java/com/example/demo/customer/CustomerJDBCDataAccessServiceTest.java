@@ -1,13 +1,17 @@
 package com.example.demo.customer;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
 import com.example.demo.AbstractTestContainers;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 
@@ -18,7 +22,9 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 	void setUp() {
 		underTest = new CustomerJDBCDataAccessService(
 				getJdbcTemplate(),
-				customerRowMapper
+				customerRowMapper,
+				100,
+				2
 		);
 	}
 
@@ -39,6 +45,52 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 		assertThat(actual).isNotEmpty();
 	}
 
+	@Test
+	void selectCustomers() {
+		//Given
+		for (int i = 0; i < 3; i++) {
+			underTest.insertCustomer(new Customer(
+					FAKER.name().fullName(),
+					FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(),
+					20
+			));
+		}
+		long after = underTest.selectAllCustomers()
+				.stream()
+				.map(Customer::getId)
+				.min(Long::compare)
+				.orElseThrow();
+
+		//When
+		List<Customer> actual = underTest.selectCustomers(after, 2);
+
+		//Then
+		assertThat(actual).hasSize(2)
+				.allSatisfy(c -> assertThat(c.getId()).isGreaterThan(after))
+				.isSortedAccordingTo(Comparator.comparing(Customer::getId));
+	}
+
+	@Test
+	void forEachCustomer() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		Customer customer = new Customer(
+				FAKER.name().fullName(),
+				email,
+				20
+		);
+		underTest.insertCustomer(customer);
+
+		//When
+		List<CustomerView> actual = new ArrayList<>();
+		underTest.forEachCustomer(actual::add);
+
+		//Then
+		assertThat(actual).hasSameSizeAs(underTest.selectAllCustomers())
+				.anySatisfy(c -> assertThat(c.email()).isEqualTo(email))
+				.isSortedAccordingTo(Comparator.comparingLong(CustomerView::id));
+	}
+
 	@Test
 	void selectCustomerById() {
 		//Given
@@ -81,6 +133,59 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 		assertThat(actual).isEmpty();
 	}
 
+	@Test
+	void insertCustomerReturnsGeneratedId() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		Customer customer = new Customer(
+				FAKER.name().fullName(),
+				email,
+				20
+		);
+
+		//When
+		Optional<Long> actual = underTest.insertCustomer(customer);
+
+		//Then
+		assertThat(actual).isPresent();
+		assertThat(underTest.selectCustomerById(actual.get()))
+				.hasValueSatisfying(c -> assertThat(c.getEmail()).isEqualTo(email));
+	}
+
+	@Test
+	void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+
+		//When
+		Optional<Long> actual = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 30));
+
+		//Then
+		assertThat(actual).isEmpty();
+	}
+
+	@Test
+	void insertCustomersSkipsTakenEmails() {
+		//Given
+		String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
+		List<Customer> customers = List.of(
+				new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 21),
+				new Customer(FAKER.name().fullName(), takenEmail, 22),
+				new Customer(FAKER.name().fullName(), FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID(), 23)
+		);
+
+		//When
+		List<Customer> actual = underTest.insertCustomers(customers);
+
+		//Then
+		assertThat(actual).hasSize(2)
+				.allSatisfy(c -> assertThat(c.getId()).isNotNull())
+				.extracting(Customer::getEmail)
+				.containsExactlyInAnyOrder(customers.get(0).getEmail(), customers.get(2).getEmail());
+	}
+
 	@Test
 	void existsPersonWithEmail() {
 		//Given
@@ -164,11 +269,69 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 				.orElseThrow();
 
 		//When
-		underTest.deleteCustomerById(id);
+		int deleted = underTest.deleteCustomerById(id);
 
 		//Then
 		Optional<Customer> actual = underTest.selectCustomerById(id);
 		assertThat(actual).isNotPresent();
+		assertThat(deleted).isEqualTo(1);
+		assertThat(underTest.deleteCustomerById(id)).isZero();
+	}
+
+	@Test
+	void deleteCustomerOnlyDeletesExpectedVersion() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		long id = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 30)).orElseThrow();
+
+		//When
+		int stale = underTest.deleteCustomer(new Customer(id, null, null, null, 7L));
+		int deleted = underTest.deleteCustomer(new Customer(id, null, null, null, Customer.INITIAL_VERSION));
+
+		//Then
+		assertThat(stale).isZero();
+		assertThat(deleted).isEqualTo(1);
+		assertThat(underTest.existsPersonWithId(id)).isFalse();
+	}
+
+	@Test
+	void deleteCustomerReturningRowReturnsRowDeletedAtExpectedVersion() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		long id = underTest.insertCustomer(new Customer("Alex", email, 30)).orElseThrow();
+
+		//When
+		Optional<Customer> stale = underTest.deleteCustomerReturningRow(new Customer(id, null, null, null, 7L));
+		Optional<Customer> deleted = underTest.deleteCustomerReturningRow(
+				new Customer(id, null, null, null, Customer.INITIAL_VERSION));
+		Optional<Customer> missing = underTest.deleteCustomerReturningRow(new Customer(id, null, null, null));
+
+		//Then
+		assertThat(stale).isEmpty();
+		assertThat(deleted).contains(new Customer(id, "Alex", email, 30, Customer.INITIAL_VERSION));
+		assertThat(missing).isEmpty();
+	}
+
+	@Test
+	void updateCustomerReturningChangeReturnsReplacedRow() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		long id = underTest.insertCustomer(new Customer("Alex", email, 30)).orElseThrow();
+
+		//When
+		Optional<CustomerChange> actual = underTest.updateCustomerReturningChange(new Customer(id, null, null, 31));
+		Optional<CustomerChange> unchanged = underTest.updateCustomerReturningChange(new Customer(id, null, null, 31));
+
+		//Then
+		assertThat(actual).contains(new CustomerChange(
+				new Customer(id, "Alex", email, 30, Customer.INITIAL_VERSION),
+				new Customer(id, "Alex", email, 31, Customer.INITIAL_VERSION + 1)
+		));
+		assertThat(unchanged).isEmpty();
+		assertThat(actual).hasValueSatisfying(change -> {
+			assertThat(change.previous().getVersion()).isEqualTo(Customer.INITIAL_VERSION);
+			assertThat(change.current().getVersion()).isEqualTo(Customer.INITIAL_VERSION + 1);
+		});
 	}
 
 	@Test
@@ -347,4 +510,218 @@ class CustomerJDBCDataAccessServiceTest extends AbstractTestContainers {
 			assertThat(c.getAge()).isEqualTo(customer.getAge());
 		});
 	}
-}
\ No newline at end of file
+
+	@Test
+	void updateCustomerReturnsEmptyWhenValuesAreUnchanged() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		Customer customer = new Customer(
+				FAKER.name().fullName(),
+				email,
+				20
+		);
+		underTest.insertCustomer(customer);
+		long id = underTest.selectAllCustomers()
+				.stream()
+				.filter(c -> c.getEmail().equals(email))
+				.map(Customer::getId)
+				.findFirst()
+				.orElseThrow();
+
+		//When
+		Customer update = new Customer();
+		update.setId(id);
+		update.setName(customer.getName());
+		update.setAge(customer.getAge());
+
+		Optional<Customer> actual = underTest.updateCustomer(update);
+
+		//Then
+		assertThat(actual).isEmpty();
+	}
+
+	@Test
+	void updateCustomerIncrementsVersionOnlyWhenExpectedVersionMatches() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		long id = underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20)).orElseThrow();
+
+		//When
+		Optional<Customer> updated = underTest.updateCustomer(new Customer(id, null, null, 21, 0L));
+		Optional<Customer> stale = underTest.updateCustomer(new Customer(id, null, null, 22, 0L));
+
+		//Then
+		assertThat(updated).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1L));
+		assertThat(stale).isEmpty();
+		assertThat(underTest.selectCustomerVersion(id)).contains(1L);
+		assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(
+				c -> assertThat(c.getAge()).isEqualTo(21));
+	}
+
+	@Test
+	void countCustomersGroupsByAgeAndLowerCasedDomain() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), "alex@" + domain, 20));
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), "jamila@" + domain.toUpperCase(), 20));
+
+		//When
+		CustomerCounts actual = underTest.countCustomers();
+
+		//Then
+		assertThat(actual.customersByEmailDomain()).containsEntry(domain, 2L);
+		assertThat(actual.customersByAge().get(20)).isGreaterThanOrEqualTo(2L);
+		assertThat(actual.customersByAge().values().stream().mapToLong(Long::longValue).sum())
+				.isEqualTo(actual.customersByEmailDomain().values().stream().mapToLong(Long::longValue).sum());
+	}
+
+	@Test
+	void updateCustomersReportsOutcomePerIdInOneStatement() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		long alex = underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 20)).orElseThrow();
+		long jamila = underTest.insertCustomer(new Customer("Jamila", "jamila@" + domain, 20)).orElseThrow();
+
+		//When
+		List<CustomerBulkResult> actual = underTest.updateCustomers(List.of(
+				new Customer(alex, "Alexandro", null, 21),
+				new Customer(jamila, null, "alex@" + domain, null),
+				new Customer(-1L, "Nobody", null, null)
+		));
+
+		//Then
+		assertThat(actual).containsExactlyInAnyOrder(
+				new CustomerBulkResult(alex, CustomerBulkResult.Status.UPDATED),
+				new CustomerBulkResult(jamila, CustomerBulkResult.Status.DUPLICATE),
+				new CustomerBulkResult(-1L, CustomerBulkResult.Status.NOT_FOUND)
+		);
+		assertThat(underTest.selectCustomerById(alex)).hasValueSatisfying(c -> {
+			assertThat(c.getName()).isEqualTo("Alexandro");
+			assertThat(c.getAge()).isEqualTo(21);
+			assertThat(c.getVersion()).isEqualTo(1L);
+		});
+		assertThat(underTest.selectCustomerById(jamila)).hasValueSatisfying(
+				c -> assertThat(c.getEmail()).isEqualTo("jamila@" + domain));
+	}
+
+	@Test
+	void updateCustomersLeavesVersionOfUnchangedRowsAlone() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		long alex = underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 20)).orElseThrow();
+
+		//When
+		List<CustomerBulkResult> actual = underTest.updateCustomers(List.of(
+				new Customer(alex, "Alex", "alex@" + domain, 20)
+		));
+
+		//Then
+		assertThat(actual).containsExactly(new CustomerBulkResult(alex, CustomerBulkResult.Status.UPDATED));
+		assertThat(underTest.selectCustomerById(alex)).hasValueSatisfying(
+				c -> assertThat(c.getVersion()).isEqualTo(Customer.INITIAL_VERSION));
+	}
+
+	@Test
+	void deleteCustomersByFilterDeletesAtMostLimitLowestIdsFirst() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		long alex = underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 20)).orElseThrow();
+		long jamila = underTest.insertCustomer(new Customer("Jamila", "jamila@" + domain, 30)).orElseThrow();
+		long ali = underTest.insertCustomer(new Customer("Ali", "ali@" + domain, 40)).orElseThrow();
+		CustomerSearch filter = new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.ID, false, 0, 2);
+
+		//When
+		List<Customer> first = underTest.deleteCustomers(filter);
+		List<Customer> second = underTest.deleteCustomers(filter);
+		List<Customer> third = underTest.deleteCustomers(filter);
+
+		//Then
+		assertThat(first).extracting(Customer::getId).containsExactlyInAnyOrder(alex, jamila);
+		assertThat(second).extracting(Customer::getId).containsExactly(ali);
+		assertThat(third).isEmpty();
+	}
+
+	@Test
+	void deleteCustomersByIdAndByFilterReturnDeletedRows() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		long alex = underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 20)).orElseThrow();
+		long jamila = underTest.insertCustomer(new Customer("Jamila", "jamila@" + domain, 30)).orElseThrow();
+		long ali = underTest.insertCustomer(new Customer("Ali", "ali@" + domain, 40)).orElseThrow();
+
+		//When
+		List<Customer> byId = underTest.deleteCustomersById(List.of(alex, -1L));
+		List<Customer> byFilter = underTest.deleteCustomers(
+				new CustomerSearch(null, domain, 35, null, CustomerSearch.Sort.ID, false, 0, 10)
+		);
+
+		//Then
+		assertThat(byId).extracting(Customer::getId).containsExactly(alex);
+		assertThat(byFilter).extracting(Customer::getId).containsExactly(ali);
+		assertThat(underTest.existsPersonWithId(jamila)).isTrue();
+		assertThat(underTest.existsPersonWithId(ali)).isFalse();
+	}
+
+	@Test
+	void updateCustomerThrowsWhenEmailIsTaken() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		String takenEmail = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), email, 20));
+		underTest.insertCustomer(new Customer(FAKER.name().fullName(), takenEmail, 20));
+		long id = underTest.selectAllCustomers()
+				.stream()
+				.filter(c -> c.getEmail().equals(email))
+				.map(Customer::getId)
+				.findFirst()
+				.orElseThrow();
+
+		//When
+		Customer update = new Customer();
+		update.setId(id);
+		update.setEmail(takenEmail);
+
+		//Then
+		assertThatThrownBy(() -> underTest.updateCustomer(update))
+				.isInstanceOf(DuplicateKeyException.class);
+	}
+
+	@Test
+	void searchCustomers() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		underTest.insertCustomer(new Customer("Alex", "alex@" + domain, 30));
+		underTest.insertCustomer(new Customer("alexandro", "alexandro@" + domain.toUpperCase(), 40));
+		underTest.insertCustomer(new Customer("Al_x", "al_x@" + domain, 35));
+		underTest.insertCustomer(new Customer("Bob", "bob@" + domain, 30));
+
+		//When
+		List<Customer> actual = underTest.searchCustomers(
+				new CustomerSearch("al", domain, 30, 40, CustomerSearch.Sort.AGE, true, 0, 10)
+		);
+		List<Customer> escaped = underTest.searchCustomers(
+				new CustomerSearch("al_", domain, null, null, CustomerSearch.Sort.ID, false, 0, 10)
+		);
+
+		//Then
+		assertThat(actual).extracting(Customer::getName).containsExactly("alexandro", "Al_x", "Alex");
+		assertThat(escaped).extracting(Customer::getName).containsExactly("Al_x");
+	}
+
+	@Test
+	void fuzzySearchCustomers() {
+		//Given
+		String name = "Bartholomew " + UUID.randomUUID();
+		String email = "bartholomew-" + UUID.randomUUID() + "@gmail.com";
+		underTest.insertCustomer(new Customer(name, email, 20));
+
+		//When
+		List<CustomerMatch> actual = underTest.fuzzySearchCustomers("bartolomew", 10);
+
+		//Then
+		assertThat(actual).extracting(match -> match.customer().getEmail()).contains(email);
+		assertThat(actual).extracting(CustomerMatch::similarity)
+				.allSatisfy(similarity -> assertThat(similarity).isBetween(0.0, 1.0))
+				.isSortedAccordingTo(Comparator.reverseOrder());
+	}
+}
@@ -1,12 +1,26 @@
 package com.example.demo.customer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.verify;
 
@@ -17,11 +31,15 @@ class CustomerJPADataAccessServiceTest {
 
 	@Mock
 	private CustomerRepository customerRepository;
+	@Mock
+	private EntityManager entityManager;
+	@Mock
+	private TypedQuery<CustomerView> viewQuery;
 
 	@BeforeEach
 	void setUp() {
 		autoCloseable = MockitoAnnotations.openMocks(this);
-		underTest = new CustomerJPADataAccessService(customerRepository);
+		underTest = new CustomerJPADataAccessService(customerRepository, entityManager, 100);
 	}
 
 	@AfterEach
@@ -39,6 +57,42 @@ class CustomerJPADataAccessServiceTest {
 				.findAll();
 	}
 
+	@Test
+	void selectCustomers() {
+		//Given
+		long after = 10;
+		int limit = 20;
+
+		//When
+		underTest.selectCustomers(after, limit);
+
+		//Then
+		verify(customerRepository).findByIdGreaterThan(
+				after,
+				PageRequest.of(0, limit, Sort.by("id"))
+		);
+	}
+
+	@Test
+	void forEachCustomer() {
+		//Given
+		CustomerView customer = new CustomerView(1L, "Ali", "ali@gmail.com", 22);
+		when(entityManager.createQuery(
+				"SELECT new com.example.demo.customer.CustomerView(c.id, c.name, c.email, c.age) FROM Customer c ORDER BY c.id",
+				CustomerView.class
+		)).thenReturn(viewQuery);
+		when(viewQuery.setHint(HibernateHints.HINT_FETCH_SIZE, 100)).thenReturn(viewQuery);
+		when(viewQuery.getResultStream()).thenReturn(Stream.of(customer));
+		List<CustomerView> actual = new ArrayList<>();
+
+		//When
+		underTest.forEachCustomer(actual::add);
+
+		//Then
+		assertThat(actual).containsExactly(customer);
+		verify(entityManager, never()).detach(any());
+	}
+
 	@Test
 	void selectCustomerById() {
 		//Given
@@ -58,11 +112,47 @@ class CustomerJPADataAccessServiceTest {
 				1L, "Ali", "ali@gmail.com", 22
 		);
 
+		when(customerRepository.save(customer)).thenReturn(customer);
+
 		//When
-		underTest.insertCustomer(customer);
+		var actual = underTest.insertCustomer(customer);
 
 		//Then
 		verify(customerRepository).save(customer);
+		assertThat(actual).contains(1L);
+	}
+
+	@Test
+	void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+		//Given
+		Customer customer = new Customer(
+				"Ali", "ali@gmail.com", 22
+		);
+		when(customerRepository.save(customer))
+				.thenThrow(new DataIntegrityViolationException("customer_email_unique"));
+		when(customerRepository.existsCustomerByEmail(customer.getEmail())).thenReturn(true);
+
+		//When
+		var actual = underTest.insertCustomer(customer);
+
+		//Then
+		assertThat(actual).isEmpty();
+	}
+
+	@Test
+	void insertCustomersInsertsEachChunkInOneStatement() {
+		//Given
+		List<Customer> customers = IntStream.range(0, 2500)
+				.mapToObj(i -> new Customer("Alex", "alex" + i + "@gmail.com", 19))
+				.toList();
+		when(customerRepository.insertAllReturning(any(), any(), any())).thenReturn(List.of());
+
+		//When
+		underTest.insertCustomers(customers);
+
+		//Then
+		verify(customerRepository, times(3)).insertAllReturning(any(), any(), any());
+		verify(customerRepository, never()).saveAll(any());
 	}
 
 	@Test
@@ -93,12 +183,41 @@ class CustomerJPADataAccessServiceTest {
 	void deleteCustomerById() {
 		//Given
 		long id = 2;
+		when(customerRepository.deleteCustomerById(id)).thenReturn(1);
 
 		//When
-		underTest.deleteCustomerById(id);
+		int actual = underTest.deleteCustomerById(id);
 
 		//Then
-		verify(customerRepository).deleteById(id);
+		assertThat(actual).isEqualTo(1);
+		verify(customerRepository, never()).findById(id);
+	}
+
+	@Test
+	void deleteCustomerWithVersionOnlyDeletesThatVersion() {
+		//Given
+		long id = 2;
+		when(customerRepository.deleteCustomerByIdAndVersion(id, 3L)).thenReturn(0);
+
+		//When
+		int actual = underTest.deleteCustomer(new Customer(id, null, null, null, 3L));
+
+		//Then
+		assertThat(actual).isZero();
+	}
+
+	@Test
+	void deleteCustomersByIdReportsWhatTheDeleteReturned() {
+		//Given
+		Customer alex = new Customer(1L, "Alex", "alex@gmail.com", 19);
+		when(customerRepository.deleteAllByIdReturning(List.of(1L, 2L))).thenReturn(List.of(alex));
+
+		//When
+		List<Customer> actual = underTest.deleteCustomersById(List.of(1L, 2L));
+
+		//Then
+		assertThat(actual).containsExactly(alex);
+		verify(customerRepository, never()).findAllById(any());
 	}
 
 	@Test
@@ -107,11 +226,36 @@ class CustomerJPADataAccessServiceTest {
 		Customer customer = new Customer(
 				1L, "Ali", "ali@gmail.com", 22
 		);
+		when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+		when(customerRepository.save(customer)).thenReturn(customer);
+		Customer update = new Customer();
+		update.setId(1L);
+		update.setAge(23);
 
 		//When
-		underTest.updateCustomer(customer);
+		underTest.updateCustomer(update);
 
 		//Then
 		verify(customerRepository).save(customer);
+		assertThat(customer.getAge()).isEqualTo(23);
+	}
+
+	@Test
+	void willNotSaveWhenUpdateHasNoChanges() {
+		//Given
+		Customer customer = new Customer(
+				1L, "Ali", "ali@gmail.com", 22
+		);
+		when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+		Customer update = new Customer();
+		update.setId(1L);
+		update.setAge(22);
+
+		//When
+		var actual = underTest.updateCustomer(update);
+
+		//Then
+		assertThat(actual).isEmpty();
+		verify(customerRepository, never()).save(any());
 	}
 }
\ No newline at end of file
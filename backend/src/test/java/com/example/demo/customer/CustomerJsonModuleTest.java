@@ -0,0 +1,61 @@
+package com.example.demo.customer;
+
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerJsonModuleTest {
+	private final ObjectMapper reflective = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private final ObjectMapper underTest = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+			.registerModule(new CustomerJsonModule());
+
+	@Test
+	void serializesCustomerLikeTheBeanSerializer() throws Exception {
+		//Given
+		Customer customer = new Customer(7L, "Alex \"A\"", "alex@gmail.com", 19, 3L);
+		Customer unsaved = new Customer(null, null, "alex@gmail.com", null);
+
+		//When
+		String actual = underTest.writeValueAsString(customer);
+		String actualUnsaved = underTest.writeValueAsString(unsaved);
+
+		//Then
+		assertThat(actual).isEqualTo(reflective.writeValueAsString(customer));
+		assertThat(actualUnsaved).isEqualTo(reflective.writeValueAsString(unsaved));
+	}
+
+	@Test
+	void deserializesRequestsLikeTheRecordDeserializer() throws Exception {
+		//Given
+		String json = """
+				{"name": "Alex", "unknown": {"nested": [1, 2]}, "email": "alex@gmail.com", "age": "19"}
+				""";
+
+		//When
+		CustomerRegistrationRequest registration = underTest.readValue(json, CustomerRegistrationRequest.class);
+		CustomerUpdateRequest update = underTest.readValue("{\"age\": null, \"name\": 5}", CustomerUpdateRequest.class);
+
+		//Then
+		assertThat(registration).isEqualTo(reflective.readValue(json, CustomerRegistrationRequest.class));
+		assertThat(update).isEqualTo(new CustomerUpdateRequest("5", null, null));
+	}
+
+	@Test
+	void rejectsMalformedRequestsLikeTheRecordDeserializer() {
+		//When
+		assertThatThrownBy(() -> underTest.readValue("{\"name\": {}}", CustomerUpdateRequest.class))
+				.isInstanceOf(MismatchedInputException.class);
+		assertThatThrownBy(() -> underTest.readValue("[]", CustomerUpdateRequest.class))
+				.isInstanceOf(MismatchedInputException.class);
+		assertThatThrownBy(() -> new ObjectMapper().registerModule(new CustomerJsonModule())
+				.readValue("{\"nickname\": \"Al\"}", CustomerUpdateRequest.class))
+				.isInstanceOf(UnrecognizedPropertyException.class);
+	}
+}
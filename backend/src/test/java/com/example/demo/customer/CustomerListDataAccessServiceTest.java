@@ -0,0 +1,275 @@
+package com.example.demo.customer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CustomerListDataAccessServiceTest {
+
+	private CustomerListDataAccessService underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new CustomerListDataAccessService();
+	}
+
+	@Test
+	void insertCustomerAssignsUniqueIdsAfterDeletes() {
+		//Given
+		long first = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+		underTest.deleteCustomerById(first);
+
+		//When
+		long second = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+
+		//Then
+		assertThat(second).isNotEqualTo(first);
+		assertThat(underTest.existsPersonWithId(first)).isFalse();
+		assertThat(underTest.existsPersonWithId(second)).isTrue();
+	}
+
+	@Test
+	void deletesReportHowManyRowsWereRemoved() {
+		//Given
+		long ali = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+		long bob = underTest.insertCustomer(new Customer("Bob", "bob@gmail.com", 30)).orElseThrow();
+
+		//When
+		int stale = underTest.deleteCustomer(new Customer(bob, null, null, null, 5L));
+		int deleted = underTest.deleteCustomer(new Customer(bob, null, null, null, Customer.INITIAL_VERSION));
+		int first = underTest.deleteCustomerById(ali);
+		int second = underTest.deleteCustomerById(ali);
+
+		//Then
+		assertThat(stale).isZero();
+		assertThat(deleted).isEqualTo(1);
+		assertThat(first).isEqualTo(1);
+		assertThat(second).isZero();
+	}
+
+	@Test
+	void insertCustomerReturnsEmptyWhenEmailIsTaken() {
+		//When
+		var actual = underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 30));
+
+		//Then
+		assertThat(actual).isEmpty();
+	}
+
+	@Test
+	void countCustomersGroupsByAgeAndLowerCasedDomain() {
+		//Given
+		underTest.insertCustomer(new Customer("Ali", "ali@GMAIL.com", 21));
+
+		//When
+		CustomerCounts actual = underTest.countCustomers();
+
+		//Then
+		assertThat(actual.customersByAge()).containsEntry(21, 2L).containsEntry(19, 1L);
+		assertThat(actual.customersByEmailDomain()).containsExactly(Map.entry("gmail.com", 3L));
+	}
+
+	@Test
+	void updateCustomersReportsOutcomePerId() {
+		//Given
+		long ali = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+		long bob = underTest.insertCustomer(new Customer("Bob", "bob@gmail.com", 30)).orElseThrow();
+
+		//When
+		List<CustomerBulkResult> actual = underTest.updateCustomers(List.of(
+				new Customer(ali, null, null, 23),
+				new Customer(bob, null, "alex@gmail.com", null),
+				new Customer(-1L, "Nobody", null, null)
+		));
+
+		//Then
+		assertThat(actual).containsExactly(
+				new CustomerBulkResult(ali, CustomerBulkResult.Status.UPDATED),
+				new CustomerBulkResult(bob, CustomerBulkResult.Status.DUPLICATE),
+				new CustomerBulkResult(-1L, CustomerBulkResult.Status.NOT_FOUND)
+		);
+		assertThat(underTest.selectCustomerById(ali)).hasValueSatisfying(c -> assertThat(c.getAge()).isEqualTo(23));
+	}
+
+	@Test
+	void deleteCustomersByIdAndByFilterReturnDeletedRows() {
+		//Given
+		long ali = underTest.insertCustomer(new Customer("Ali", "ali@amigoscode.com", 22)).orElseThrow();
+		long bob = underTest.insertCustomer(new Customer("Bob", "bob@amigoscode.com", 30)).orElseThrow();
+		long mia = underTest.insertCustomer(new Customer("Mia", "mia@amigoscode.com", 40)).orElseThrow();
+
+		//When
+		List<Customer> byId = underTest.deleteCustomersById(List.of(ali, -1L));
+		List<Customer> byFilter = underTest.deleteCustomers(
+				new CustomerSearch(null, "amigoscode.com", 35, null, CustomerSearch.Sort.ID, false, 0, 10)
+		);
+
+		//Then
+		assertThat(byId).extracting(Customer::getId).containsExactly(ali);
+		assertThat(byFilter).extracting(Customer::getId).containsExactly(mia);
+		assertThat(underTest.existsPersonWithId(bob)).isTrue();
+		assertThat(underTest.existsPersonWithEmail("mia@amigoscode.com")).isFalse();
+	}
+
+	@Test
+	void updateCustomerReplacesInsteadOfAppending() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+		int size = underTest.selectAllCustomers().size();
+
+		//When
+		Optional<Customer> actual = underTest.updateCustomer(new Customer(id, null, "ali2@gmail.com", 23));
+
+		//Then
+		assertThat(actual).contains(new Customer(id, "Ali", "ali2@gmail.com", 23));
+		assertThat(underTest.selectAllCustomers()).hasSize(size);
+		assertThat(underTest.existsPersonWithEmail("ali@gmail.com")).isFalse();
+		assertThat(underTest.existsPersonWithEmail("ali2@gmail.com")).isTrue();
+	}
+
+	@Test
+	void updateCustomerIncrementsVersionOnlyWhenExpectedVersionMatches() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+
+		//When
+		Optional<Customer> updated = underTest.updateCustomer(new Customer(id, "Alibaba", null, null, 0L));
+		Optional<Customer> stale = underTest.updateCustomer(new Customer(id, "Ali", null, null, 0L));
+
+		//Then
+		assertThat(updated).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(1L));
+		assertThat(stale).isEmpty();
+		assertThat(underTest.selectCustomerVersion(id)).contains(1L);
+	}
+
+	@Test
+	void updateCustomerThrowsWhenEmailIsTaken() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+
+		//When
+		assertThatThrownBy(() -> underTest.updateCustomer(new Customer(id, null, "alex@gmail.com", null)))
+				.isInstanceOf(DuplicateKeyException.class);
+
+		//Then
+		assertThat(underTest.selectCustomerById(id)).hasValueSatisfying(
+				c -> assertThat(c.getEmail()).isEqualTo("ali@gmail.com"));
+	}
+
+	@Test
+	void selectCustomersPagesInIdOrder() {
+		//Given
+		List<Customer> all = underTest.selectAllCustomers();
+
+		//When
+		List<Customer> actual = underTest.selectCustomers(all.get(0).getId(), 10);
+
+		//Then
+		assertThat(actual).containsExactlyElementsOf(all.subList(1, all.size()));
+	}
+
+	@Test
+	void concurrentInsertsOfSameEmailCreateOneCustomer() throws InterruptedException {
+		//Given
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		//When
+		IntStream.range(0, 1000).forEach(i -> executor.execute(() ->
+				underTest.insertCustomer(new Customer("Ali", "ali-" + (i % 10) + "@gmail.com", 22))));
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+
+		//Then
+		assertThat(underTest.selectAllCustomers())
+				.filteredOn(c -> c.getEmail().startsWith("ali-"))
+				.hasSize(10);
+	}
+
+	@Test
+	void searchCustomersByNamePrefixAndAgeRange() {
+		//Given
+		underTest.insertCustomer(new Customer("Alexandro", "alexandro@gmail.com", 30));
+		underTest.insertCustomer(new Customer("alena", "alena@yahoo.com", 40));
+		underTest.insertCustomer(new Customer("Bob", "bob@gmail.com", 30));
+
+		//When
+		List<Customer> actual = underTest.searchCustomers(
+				new CustomerSearch("ale", null, 20, 35, CustomerSearch.Sort.NAME, false, 0, 10)
+		);
+
+		//Then
+		assertThat(actual).extracting(Customer::getName).containsExactly("Alex", "Alexandro");
+	}
+
+	@Test
+	void searchCustomersByEmailDomainPagesInAgeOrder() {
+		//Given
+		underTest.insertCustomer(new Customer("Ali", "ali@Amigoscode.com", 25));
+		underTest.insertCustomer(new Customer("Bob", "bob@amigoscode.com", 35));
+		underTest.insertCustomer(new Customer("Cid", "cid@amigoscode.com", 30));
+
+		//When
+		List<Customer> actual = underTest.searchCustomers(
+				new CustomerSearch(null, "amigoscode.com", null, null, CustomerSearch.Sort.AGE, true, 1, 2)
+		);
+
+		//Then
+		assertThat(actual).extracting(Customer::getName).containsExactly("Cid", "Ali");
+	}
+
+	@Test
+	void searchCustomersSeesUpdatedRow() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Ali", "ali@gmail.com", 22)).orElseThrow();
+
+		//When
+		underTest.updateCustomer(new Customer(id, "Zed", "zed@yahoo.com", 60));
+
+		//Then
+		assertThat(underTest.searchCustomers(
+				new CustomerSearch("ali", null, null, null, CustomerSearch.Sort.ID, false, 0, 10))).isEmpty();
+		assertThat(underTest.searchCustomers(
+				new CustomerSearch(null, "gmail.com", null, null, CustomerSearch.Sort.ID, false, 0, 10)))
+				.extracting(Customer::getId).doesNotContain(id);
+		assertThat(underTest.searchCustomers(
+				new CustomerSearch("zed", "yahoo.com", 60, 60, CustomerSearch.Sort.ID, false, 0, 10)))
+				.containsExactly(new Customer(id, "Zed", "zed@yahoo.com", 60));
+	}
+
+	@Test
+	void fuzzySearchCustomersFindsMisspelledNameRankedBySimilarity() {
+		//Given
+		long jamilah = underTest.insertCustomer(new Customer("Jamilah Ahmed", "ahmed@yahoo.com", 30)).orElseThrow();
+
+		//When
+		List<CustomerMatch> actual = underTest.fuzzySearchCustomers("jamilah", 10);
+
+		//Then
+		assertThat(actual).extracting(match -> match.customer().getId()).first().isEqualTo(jamilah);
+		assertThat(actual).extracting(match -> match.customer().getName()).contains("Jamila");
+		assertThat(actual).extracting(CustomerMatch::similarity).isSortedAccordingTo(Comparator.reverseOrder());
+	}
+
+	@Test
+	void fuzzySearchCustomersForgetsReplacedName() {
+		//Given
+		long id = underTest.insertCustomer(new Customer("Bartholomew", "bart@gmail.com", 22)).orElseThrow();
+
+		//When
+		underTest.updateCustomer(new Customer(id, "Zed", "zed@yahoo.com", null));
+
+		//Then
+		assertThat(underTest.fuzzySearchCustomers("bartholomew", 10)).isEmpty();
+	}
+}
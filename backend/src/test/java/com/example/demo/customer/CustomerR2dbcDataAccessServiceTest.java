@@ -0,0 +1,156 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import com.example.demo.AbstractTestContainers;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerR2dbcDataAccessServiceTest extends AbstractTestContainers {
+
+	private CustomerR2dbcDataAccessService underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new CustomerR2dbcDataAccessService(getDatabaseClient(), 100, 2);
+	}
+
+	@Test
+	void insertAndSelectCustomerById() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		Customer customer = new Customer(FAKER.name().fullName(), email, 20);
+
+		//When
+		Long id = underTest.insertCustomer(customer).block();
+
+		//Then
+		StepVerifier.create(underTest.selectCustomerById(id))
+				.assertNext(c -> {
+					assertThat(c.getId()).isEqualTo(id);
+					assertThat(c.getEmail()).isEqualTo(email);
+					assertThat(c.getAge()).isEqualTo(20);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void insertCustomerWithTakenEmailIsEmpty() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer("Alex", email, 20)).block();
+
+		//When
+		//Then
+		StepVerifier.create(underTest.insertCustomer(new Customer("Jamila", email, 21)))
+				.verifyComplete();
+	}
+
+	@Test
+	void insertCustomersAcrossChunksSkipsTakenEmails() {
+		//Given
+		String taken = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer("Alex", taken, 20)).block();
+		List<Customer> customers = List.of(
+				new Customer("A", "a-" + UUID.randomUUID() + "@amigoscode.com", 20),
+				new Customer("B", taken, 21),
+				new Customer("C", "c-" + UUID.randomUUID() + "@amigoscode.com", 22)
+		);
+
+		//When
+		List<Customer> actual = underTest.insertCustomers(customers).collectList().block();
+
+		//Then
+		assertThat(actual).extracting(Customer::getName).containsExactly("A", "C");
+	}
+
+	@Test
+	void selectCustomersPagesAfterCursor() {
+		//Given
+		Long first = underTest.insertCustomer(
+				new Customer("A", "a-" + UUID.randomUUID() + "@amigoscode.com", 20)).block();
+		Long second = underTest.insertCustomer(
+				new Customer("B", "b-" + UUID.randomUUID() + "@amigoscode.com", 21)).block();
+
+		//When
+		List<Customer> actual = underTest.selectCustomers(first, 1).collectList().block();
+
+		//Then
+		assertThat(actual).extracting(Customer::getId).containsExactly(second);
+	}
+
+	@Test
+	void selectAllCustomersStreamsWithBoundedDemand() {
+		//Given
+		underTest.insertCustomer(new Customer("A", "a-" + UUID.randomUUID() + "@amigoscode.com", 20)).block();
+		underTest.insertCustomer(new Customer("B", "b-" + UUID.randomUUID() + "@amigoscode.com", 21)).block();
+
+		//When
+		//Then
+		StepVerifier.create(underTest.selectAllCustomers(), 1)
+				.expectNextCount(1)
+				.thenRequest(1)
+				.expectNextCount(1)
+				.thenCancel()
+				.verify();
+	}
+
+	@Test
+	void updateCustomerReturnsChangedRowOnly() {
+		//Given
+		String email = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		Long id = underTest.insertCustomer(new Customer("Alex", email, 20)).block();
+		Customer update = new Customer();
+		update.setId(id);
+		update.setAge(30);
+
+		//When
+		//Then
+		StepVerifier.create(underTest.updateCustomer(update))
+				.assertNext(c -> assertThat(c.getAge()).isEqualTo(30))
+				.verifyComplete();
+		StepVerifier.create(underTest.updateCustomer(update))
+				.verifyComplete();
+	}
+
+	@Test
+	void updateCustomerToTakenEmailFails() {
+		//Given
+		String taken = FAKER.internet().safeEmailAddress() + "-" + UUID.randomUUID();
+		underTest.insertCustomer(new Customer("Alex", taken, 20)).block();
+		Long id = underTest.insertCustomer(
+				new Customer("Jamila", "j-" + UUID.randomUUID() + "@amigoscode.com", 21)).block();
+		Customer update = new Customer();
+		update.setId(id);
+		update.setEmail(taken);
+
+		//When
+		//Then
+		StepVerifier.create(underTest.updateCustomer(update))
+				.expectError(DuplicateKeyException.class)
+				.verify();
+	}
+
+	@Test
+	void deleteCustomerByIdReportsWhetherARowWasDeleted() {
+		//Given
+		Long id = underTest.insertCustomer(
+				new Customer("Alex", "a-" + UUID.randomUUID() + "@amigoscode.com", 20)).block();
+
+		//When
+		//Then
+		StepVerifier.create(underTest.deleteCustomerById(id))
+				.expectNext(true)
+				.verifyComplete();
+		StepVerifier.create(underTest.deleteCustomerById(id))
+				.expectNext(false)
+				.verifyComplete();
+		StepVerifier.create(underTest.existsPersonWithId(id))
+				.expectNext(false)
+				.verifyComplete();
+	}
+}
@@ -1,15 +1,21 @@
 package com.example.demo.customer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import javax.sql.DataSource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 import com.example.demo.AbstractTestContainers;
 
+import jakarta.persistence.EntityManager;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
@@ -22,6 +28,12 @@ class CustomerRepositoryTest extends AbstractTestContainers {
 	@Autowired
 	private ApplicationContext applicationContext;
 
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private DataSource dataSource;
+
 	@BeforeEach
 	void setUp() {
 		underTest.deleteAll();
@@ -95,4 +107,204 @@ class CustomerRepositoryTest extends AbstractTestContainers {
 		//Then
 		assertThat(actual).isFalse();
 	}
-}
\ No newline at end of file
+
+	@Test
+	void searchCustomersWithSpecification() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		underTest.save(new Customer("Alex", "alex@" + domain, 30));
+		underTest.save(new Customer("alexandro", "alexandro@" + domain.toUpperCase(), 40));
+		underTest.save(new Customer("Alena", "alena@" + domain, 50));
+		underTest.save(new Customer("Bob", "bob@" + domain, 30));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+
+		//When
+		List<Customer> actual = jpa.searchCustomers(
+				new CustomerSearch("ale", domain, null, 45, CustomerSearch.Sort.AGE, false, 1, 10)
+		);
+
+		//Then
+		assertThat(actual).extracting(Customer::getName).containsExactly("alexandro");
+	}
+
+	@Test
+	void insertCustomersSkipsTakenEmails() {
+		//Given
+		String taken = "taken-" + UUID.randomUUID() + "@gmail.com";
+		String fresh = "fresh-" + UUID.randomUUID() + "@gmail.com";
+		underTest.save(new Customer("Taken", taken, 30));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+
+		//When
+		List<Customer> actual = jpa.insertCustomers(
+				List.of(new Customer("Taken", taken, 31), new Customer("Fresh", fresh, 32))
+		);
+
+		//Then
+		assertThat(actual).extracting(Customer::getEmail).containsExactly(fresh);
+		assertThat(actual.get(0).getId()).isNotNull();
+		assertThat(actual.get(0).getVersion()).isEqualTo(Customer.INITIAL_VERSION);
+	}
+
+	@Test
+	void nameOrderIsTheSameOnEveryBackend() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		List<Customer> customers = List.of(
+				new Customer("bob", "bob-lower@" + domain, 30),
+				new Customer("Carol", "carol@" + domain, 30),
+				new Customer("alice", "alice@" + domain, 30),
+				new Customer("Bob", "bob-upper@" + domain, 30),
+				new Customer("Albert", "albert@" + domain, 30)
+		);
+		underTest.saveAll(customers.stream().map(c -> new Customer(c.getName(), c.getEmail(), c.getAge())).toList());
+		entityManager.flush();
+		CustomerListDataAccessService list = new CustomerListDataAccessService(false);
+		customers.forEach(list::insertCustomer);
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+		// a JdbcTemplate on the test's DataSource joins its transaction, so it sees the flushed rows
+		CustomerJDBCDataAccessService jdbc = new CustomerJDBCDataAccessService(
+				new JdbcTemplate(dataSource), new CustomerRowMapper(), 100, 100
+		);
+		CustomerSearch firstPage = new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.NAME, false, 0, 2);
+		CustomerSearch secondPage = new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.NAME, false, 2, 2);
+		CustomerSearch descending = new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.NAME, true, 0, 10);
+
+		//When
+		List<List<String>> pages = new ArrayList<>();
+		for (CustomerDao dao : List.<CustomerDao>of(list, jpa, jdbc)) {
+			pages.add(emailsOf(dao.searchCustomers(firstPage)));
+			pages.add(emailsOf(dao.searchCustomers(secondPage)));
+			pages.add(emailsOf(dao.searchCustomers(descending)));
+		}
+
+		//Then
+		List<List<String>> expected = List.of(
+				List.of("albert@" + domain, "alice@" + domain),
+				List.of("bob-lower@" + domain, "bob-upper@" + domain),
+				List.of("carol@" + domain, "bob-upper@" + domain, "bob-lower@" + domain, "alice@" + domain, "albert@" + domain)
+		);
+		assertThat(pages).containsExactly(
+				expected.get(0), expected.get(1), expected.get(2),
+				expected.get(0), expected.get(1), expected.get(2),
+				expected.get(0), expected.get(1), expected.get(2)
+		);
+	}
+
+	@Test
+	void searchCustomersSecondPageStartsAfterTheFirst() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		List<Customer> saved = underTest.saveAll(List.of(
+				new Customer("Alex", "alex@" + domain, 30),
+				new Customer("Alena", "alena@" + domain, 31),
+				new Customer("Bob", "bob@" + domain, 32),
+				new Customer("Carl", "carl@" + domain, 33),
+				new Customer("Dora", "dora@" + domain, 34)
+		));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+
+		//When
+		List<Customer> actual = jpa.searchCustomers(
+				new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.ID, false, 2, 2)
+		);
+
+		//Then
+		// pins what ScrollPosition.offset means here, since its semantics moved between Spring Data releases
+		assertThat(actual).extracting(Customer::getId).containsExactly(saved.get(2).getId(), saved.get(3).getId());
+	}
+
+	@Test
+	void findSimilar() {
+		//Given
+		String email = "bartholomew-" + UUID.randomUUID() + "@gmail.com";
+		underTest.save(new Customer("Bartholomew Simpson", email, 20));
+
+		//When
+		List<CustomerRepository.Similar> actual = underTest.findSimilar("bartolomew", 10);
+
+		//Then
+		assertThat(actual).extracting(CustomerRepository.Similar::getEmail).containsExactly(email);
+	}
+
+	@Test
+	void countCustomersByAgeAndEmailDomain() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		underTest.save(new Customer("Alex", "alex@" + domain, 30));
+		underTest.save(new Customer("Jamila", "jamila@" + domain.toUpperCase(), 40));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+
+		//When
+		CustomerCounts actual = jpa.countCustomers();
+
+		//Then
+		assertThat(actual.customersByEmailDomain()).containsEntry(domain, 2L);
+		assertThat(actual.customersByAge()).containsKeys(30, 40);
+	}
+
+	@Test
+	void bulkUpdateAndDeleteThroughJpa() {
+		//Given
+		String domain = UUID.randomUUID() + ".com";
+		Customer alex = underTest.save(new Customer("Alex", "alex@" + domain, 30));
+		Customer jamila = underTest.save(new Customer("Jamila", "jamila@" + domain, 40));
+		Customer ali = underTest.save(new Customer("Ali", "ali@" + domain, 50));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+
+		//When
+		List<CustomerBulkResult> updated = jpa.updateCustomers(List.of(
+				new Customer(alex.getId(), null, null, 31),
+				new Customer(jamila.getId(), null, "alex@" + domain, null)
+		));
+		List<Customer> deleted = jpa.deleteCustomersById(List.of(alex.getId(), -1L));
+		List<Customer> firstPage = jpa.deleteCustomers(
+				new CustomerSearch(null, domain, null, null, CustomerSearch.Sort.ID, false, 0, 1)
+		);
+
+		//Then
+		assertThat(updated).containsExactly(
+				new CustomerBulkResult(alex.getId(), CustomerBulkResult.Status.UPDATED),
+				new CustomerBulkResult(jamila.getId(), CustomerBulkResult.Status.DUPLICATE)
+		);
+		assertThat(deleted).extracting(Customer::getAge).containsExactly(31);
+		assertThat(underTest.existsCustomerById(alex.getId())).isFalse();
+		assertThat(firstPage).extracting(Customer::getId).containsExactly(jamila.getId());
+		assertThat(underTest.existsCustomerById(ali.getId())).isTrue();
+	}
+
+	@Test
+	void deleteCustomerByIdReportsDeletedRows() {
+		//Given
+		Customer customer = underTest.save(new Customer("Alex", UUID.randomUUID() + "@amigoscode.com", 30));
+		underTest.flush();
+
+		//When
+		int stale = underTest.deleteCustomerByIdAndVersion(customer.getId(), customer.getVersion() + 1);
+		int deleted = underTest.deleteCustomerById(customer.getId());
+		int missing = underTest.deleteCustomerById(customer.getId());
+
+		//Then
+		assertThat(stale).isZero();
+		assertThat(deleted).isEqualTo(1);
+		assertThat(missing).isZero();
+	}
+
+	@Test
+	void forEachCustomerStreamsViewsThroughJpa() {
+		//Given
+		Customer customer = underTest.save(new Customer("Alex", UUID.randomUUID() + "@amigoscode.com", 30));
+		CustomerJPADataAccessService jpa = new CustomerJPADataAccessService(underTest, entityManager, 100);
+		List<CustomerView> actual = new ArrayList<>();
+
+		//When
+		jpa.forEachCustomer(actual::add);
+
+		//Then
+		assertThat(actual).containsExactly(CustomerView.of(customer));
+	}
+
+	private static List<String> emailsOf(List<Customer> customers) {
+		return customers.stream().map(Customer::getEmail).toList();
+	}
+}
@@ -15,10 +15,11 @@ class CustomerRowMapperTest {
 		//Given
 		CustomerRowMapper customerRowMapper = new CustomerRowMapper();
 		ResultSet resultSet = mock(ResultSet.class);
-		when(resultSet.getLong("id")).thenReturn(1L);
-		when(resultSet.getInt("age")).thenReturn(19);
-		when(resultSet.getString("name")).thenReturn("Jamila");
-		when(resultSet.getString("email")).thenReturn("jamila@gmail.com");
+		when(resultSet.getLong(1)).thenReturn(1L);
+		when(resultSet.getString(2)).thenReturn("Jamila");
+		when(resultSet.getString(3)).thenReturn("jamila@gmail.com");
+		when(resultSet.getInt(4)).thenReturn(19);
+		when(resultSet.getLong(5)).thenReturn(3L);
 
 		//When
 		Customer actual = customerRowMapper.mapRow(resultSet, 1);
@@ -28,5 +29,23 @@ class CustomerRowMapperTest {
 				1L, "Jamila", "jamila@gmail.com",19
 		);
 		assertThat(actual).isEqualTo(expected);
+		assertThat(actual.getVersion()).isEqualTo(3L);
 	}
-}
\ No newline at end of file
+
+	@Test
+	void mapView() throws SQLException {
+		//Given
+		CustomerRowMapper customerRowMapper = new CustomerRowMapper();
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.getLong(1)).thenReturn(1L);
+		when(resultSet.getString(2)).thenReturn("Jamila");
+		when(resultSet.getString(3)).thenReturn("jamila@gmail.com");
+		when(resultSet.getInt(4)).thenReturn(19);
+
+		//When
+		CustomerView actual = customerRowMapper.mapView(resultSet);
+
+		//Then
+		assertThat(actual).isEqualTo(new CustomerView(1L, "Jamila", "jamila@gmail.com", 19));
+	}
+}
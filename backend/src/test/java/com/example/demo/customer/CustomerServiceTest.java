@@ -1,20 +1,26 @@
 package com.example.demo.customer;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import com.example.demo.exception.DuplicateResourceException;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.RequestValidationException;
 import com.example.demo.exception.ResourceNotFoundException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -23,20 +29,71 @@ import static org.mockito.Mockito.when;
 class CustomerServiceTest {
 	@Mock
 	private CustomerDao customerDao;
+	@Mock
+	private CustomerAggregates customerAggregates;
+	@Captor
+	private ArgumentCaptor<List<Customer>> customersArgumentCaptor;
 	private CustomerService underTest;
 
 	@BeforeEach
 	void setUp() {
-		underTest = new CustomerService(customerDao);
+		underTest = new CustomerService(customerDao, Optional.of(customerAggregates));
+	}
+
+	@Test
+	void getCustomers() {
+		//Given
+		long after = 5;
+		int limit = 2;
+		Customer alex = new Customer(6L, "Alex", "alex@gmail.com", 19);
+		Customer jamila = new Customer(7L, "Jamila", "jamila@gmail.com", 21);
+		Customer ali = new Customer(8L, "Ali", "ali@gmail.com", 22);
+		when(customerDao.selectCustomers(after, limit + 1)).thenReturn(List.of(alex, jamila, ali));
+
+		//When
+		CustomerPage actual = underTest.getCustomers(after, limit);
+
+		//Then
+		assertThat(actual.customers()).containsExactly(alex, jamila);
+		assertThat(actual.nextCursor()).isEqualTo(jamila.getId());
+	}
+
+	@Test
+	void getCustomersReturnsNoCursorOnLastPage() {
+		//Given
+		int limit = 2;
+		Customer alex = new Customer(6L, "Alex", "alex@gmail.com", 19);
+		when(customerDao.selectCustomers(null, limit + 1)).thenReturn(List.of(alex));
+
+		//When
+		CustomerPage actual = underTest.getCustomers(null, limit);
+
+		//Then
+		assertThat(actual.customers()).containsExactly(alex);
+		assertThat(actual.nextCursor()).isNull();
 	}
 
 	@Test
-	void getAllCustomers() {
+	void willThrowWhenPageLimitIsOutOfRange() {
 		//When
-		underTest.getAllCustomers();
+		assertThatThrownBy(() -> underTest.getCustomers(null, 0))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("limit must be between 1 and %d".formatted(CustomerService.MAX_PAGE_SIZE));
+
+		//Then
+		verify(customerDao, never()).selectCustomers(any(), anyInt());
+	}
+
+	@Test
+	void exportCustomers() {
+		//Given
+		Consumer<CustomerView> action = customer -> {};
+
+		//When
+		underTest.exportCustomers(action);
 
 		//Then
-		verify(customerDao).selectAllCustomers();
+		verify(customerDao).forEachCustomer(action);
 	}
 
 	@Test
@@ -68,16 +125,29 @@ class CustomerServiceTest {
 	}
 
 	@Test
-	void addCustomer() {
+	void isEmailAvailable() {
 		//Given
 		String email = "alex@gmail.com";
 		when(customerDao.existsPersonWithEmail(email)).thenReturn(false);
+
+		//When
+		boolean actual = underTest.isEmailAvailable(email);
+
+		//Then
+		assertThat(actual).isTrue();
+	}
+
+	@Test
+	void addCustomer() {
+		//Given
+		String email = "alex@gmail.com";
 		CustomerRegistrationRequest request = new CustomerRegistrationRequest(
 				"Alex", email, 19
 		);
+		when(customerDao.insertCustomer(any())).thenReturn(Optional.of(1L));
 
 		//When
-		underTest.addCustomer(request);
+		Long actual = underTest.addCustomer(request);
 
 		//Then
 		ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(
@@ -91,95 +161,154 @@ class CustomerServiceTest {
 		assertThat(capturedCustomer.getName()).isEqualTo(request.name());
 		assertThat(capturedCustomer.getEmail()).isEqualTo(request.email());
 		assertThat(capturedCustomer.getAge()).isEqualTo(request.age());
+		assertThat(actual).isEqualTo(1L);
+		verify(customerDao, never()).existsPersonWithEmail(any());
 	}
 
 	@Test
 	void willThrowWhenEmailExistsWhileAddingCustomer() {
 		//Given
 		String email = "alex@gmail.com";
-		when(customerDao.existsPersonWithEmail(email)).thenReturn(true);
 		CustomerRegistrationRequest request = new CustomerRegistrationRequest(
 				"Alex", email, 19
 		);
+		when(customerDao.insertCustomer(any())).thenReturn(Optional.empty());
 
 		//When
 		assertThatThrownBy(() -> underTest.addCustomer(request))
 				.isInstanceOf(DuplicateResourceException.class)
 				.hasMessage("email already taken");
+	}
+
+	@Test
+	void addCustomers() {
+		//Given
+		CustomerRegistrationRequest alex = new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19);
+		CustomerRegistrationRequest jamila = new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", 21);
+		CustomerRegistrationRequest alexAgain = new CustomerRegistrationRequest("Alex", "alex@gmail.com", 20);
+		when(customerDao.insertCustomers(any()))
+				.thenReturn(List.of(new Customer(1L, "Alex", "alex@gmail.com", 19)));
+
+		//When
+		List<CustomerRegistrationResult> actual = underTest.addCustomers(List.of(alex, jamila, alexAgain));
+
+		//Then
+		verify(customerDao).insertCustomers(customersArgumentCaptor.capture());
+		assertThat(customersArgumentCaptor.getValue())
+				.extracting(Customer::getEmail)
+				.containsExactly("alex@gmail.com", "jamila@gmail.com");
+
+		assertThat(actual).containsExactly(
+				new CustomerRegistrationResult("alex@gmail.com", 1L, CustomerRegistrationResult.Status.CREATED),
+				new CustomerRegistrationResult("jamila@gmail.com", null, CustomerRegistrationResult.Status.DUPLICATE),
+				new CustomerRegistrationResult("alex@gmail.com", null, CustomerRegistrationResult.Status.DUPLICATE)
+		);
+	}
+
+	@Test
+	void willThrowWhenBatchRegistrationIsMissingFields() {
+		//Given
+		CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", null, 19);
+
+		//When
+		assertThatThrownBy(() -> underTest.addCustomers(List.of(request)))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("customer at index [0] is missing name, email or age");
 
 		//Then
-		verify(customerDao, never()).insertCustomer(any());
+		verify(customerDao, never()).insertCustomers(any());
 	}
 
 	@Test
 	void deleteCustomerById() {
 		//Given
 		long id = 10;
-		when(customerDao.existsPersonWithId(id)).thenReturn(true);
+		when(customerDao.deleteCustomerById(id)).thenReturn(1);
 		//When
 		underTest.deleteCustomerById(id);
 
 		//Then
 		verify(customerDao).deleteCustomerById(id);
+		verify(customerDao, never()).existsPersonWithId(any());
 	}
 
 	@Test
 	void willThrowDeleteCustomerByIdNotFound() {
 		//Given
 		long id = 10;
-		when(customerDao.existsPersonWithId(id)).thenReturn(false);
+		when(customerDao.deleteCustomerById(id)).thenReturn(0);
 		//When
 		assertThatThrownBy(() -> underTest.deleteCustomerById(id))
 				.isInstanceOf(ResourceNotFoundException.class)
 				.hasMessage("customer with id [%s] not found".formatted(id));
 
 		//Then
-		verify(customerDao, never()).deleteCustomerById(any());
+		verify(customerDao, never()).existsPersonWithId(any());
 	}
 
 	@Test
-	void canUpdateCustomerAllProperties() {
+	void deleteCustomerDoesNotLoadTheCustomerFirst() {
 		//Given
 		long id = 10;
-		String newEmail = "alexandro@amigoscode.com";
+		when(customerDao.deleteCustomer(any())).thenReturn(1);
+		//When
+		underTest.deleteCustomer(id);
 
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
-		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		//Then
+		ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+		verify(customerDao).deleteCustomer(customerArgumentCaptor.capture());
+		assertThat(customerArgumentCaptor.getValue().getId()).isEqualTo(id);
+		verify(customerDao, never()).selectCustomerById(any());
+	}
 
+	@Test
+	void willThrowDeleteCustomerNotFound() {
+		//Given
+		long id = 10;
+		when(customerDao.deleteCustomer(any())).thenReturn(0);
+		//When
+		assertThatThrownBy(() -> underTest.deleteCustomer(id))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("customer with id [%s] not found".formatted(id));
+	}
+
+	@Test
+	void canUpdateCustomerAllProperties() {
+		//Given
+		long id = 10;
+		String newEmail = "alexandro@amigoscode.com";
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
 				"Alexandro",newEmail,23
 		);
-
-		when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+		Customer updated = new Customer(id, "Alexandro", newEmail, 23);
+		when(customerDao.updateCustomer(any())).thenReturn(Optional.of(updated));
 
 		//When
-		underTest.updateCustomer(id,updateRequest);
+		Customer actual = underTest.updateCustomer(id,updateRequest);
 		//Then
 		ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
 		verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
 
 		Customer capturedCustomer = customerArgumentCaptor.getValue();
 
+		assertThat(capturedCustomer.getId()).isEqualTo(id);
 		assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
 		assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
 		assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
+		assertThat(actual).isEqualTo(updated);
+		verify(customerDao, never()).selectCustomerById(any());
+		verify(customerDao, never()).existsPersonWithEmail(any());
 	}
 
 	@Test
 	void canUpdateOnlyCustomerName() {
 		//Given
 		long id = 10;
-
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
-		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
 				"Alexandro",null,null
 		);
+		when(customerDao.updateCustomer(any()))
+				.thenReturn(Optional.of(new Customer(id, "Alexandro", "alex@gmail.com", 19)));
 
 		//When
 		underTest.updateCustomer(id,updateRequest);
@@ -190,25 +319,20 @@ class CustomerServiceTest {
 		Customer capturedCustomer = customerArgumentCaptor.getValue();
 
 		assertThat(capturedCustomer.getName()).isEqualTo(updateRequest.name());
-		assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
-		assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+		assertThat(capturedCustomer.getEmail()).isNull();
+		assertThat(capturedCustomer.getAge()).isNull();
 	}
 
 	@Test
 	void canUpdateOnlyCustomerEmail() {
 		//Given
 		long id = 10;
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
-		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
 		String newEmail = "alexandro@amigoscode.com";
-
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
 				null,newEmail,null
 		);
-
-		when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(false);
+		when(customerDao.updateCustomer(any()))
+				.thenReturn(Optional.of(new Customer(id, "Alex", newEmail, 19)));
 
 		//When
 		underTest.updateCustomer(id,updateRequest);
@@ -218,24 +342,20 @@ class CustomerServiceTest {
 
 		Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-		assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
+		assertThat(capturedCustomer.getName()).isNull();
 		assertThat(capturedCustomer.getEmail()).isEqualTo(updateRequest.email());
-		assertThat(capturedCustomer.getAge()).isEqualTo(customer.getAge());
+		assertThat(capturedCustomer.getAge()).isNull();
 	}
 
 	@Test
 	void canUpdateOnlyCustomerAge() {
 		//Given
 		long id = 10;
-
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
-		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
-
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
 				null,null,23
 		);
+		when(customerDao.updateCustomer(any()))
+				.thenReturn(Optional.of(new Customer(id, "Alex", "alex@gmail.com", 23)));
 
 		//When
 		underTest.updateCustomer(id,updateRequest);
@@ -245,8 +365,8 @@ class CustomerServiceTest {
 
 		Customer capturedCustomer = customerArgumentCaptor.getValue();
 
-		assertThat(capturedCustomer.getName()).isEqualTo(customer.getName());
-		assertThat(capturedCustomer.getEmail()).isEqualTo(customer.getEmail());
+		assertThat(capturedCustomer.getName()).isNull();
+		assertThat(capturedCustomer.getEmail()).isNull();
 		assertThat(capturedCustomer.getAge()).isEqualTo(updateRequest.age());
 	}
 
@@ -254,37 +374,41 @@ class CustomerServiceTest {
 	void willThrowWhenTryingToUpdateCustomerEmailWhenAlreadyTaken() {
 		//Given
 		long id = 10;
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
-		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
 		String newEmail = "alexandro@amigoscode.com";
-
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
 				null,newEmail,null
 		);
-
-		when(customerDao.existsPersonWithEmail(newEmail)).thenReturn(true);
+		when(customerDao.updateCustomer(any()))
+				.thenThrow(new DuplicateKeyException("customer_email_unique"));
 
 		//When
 		assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
 				.isInstanceOf(DuplicateResourceException.class)
 				.hasMessage("email already taken");
-		//Then
-		verify(customerDao, never()).updateCustomer(any());
 	}
 
 	@Test
 	void willThrowWhenCustomerUpdateHasNoChanges() {
 		//Given
 		long id = 10;
-		Customer customer = new Customer(
-				id, "Alex", "alex@gmail.com", 19
+		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+				"Alex","alex@gmail.com",19
 		);
-		when(customerDao.selectCustomerById(id)).thenReturn(Optional.of(customer));
+		when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+		when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(0L));
 
+		//When
+		assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("no data changes found");
+	}
+
+	@Test
+	void willThrowWhenCustomerUpdateHasNoFields() {
+		//Given
+		long id = 10;
 		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
-				customer.getName(),customer.getEmail(),customer.getAge()
+				null,null,null
 		);
 
 		//When
@@ -294,4 +418,263 @@ class CustomerServiceTest {
 		//Then
 		verify(customerDao, never()).updateCustomer(any());
 	}
-}
\ No newline at end of file
+
+	@Test
+	void willThrowWhenUpdatingCustomerNotFound() {
+		//Given
+		long id = 10;
+		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+				"Alexandro",null,null
+		);
+		when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+		when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.empty());
+
+		//When
+		assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("customer with id [%s] not found".formatted(id));
+	}
+
+	@Test
+	void updateCustomerPassesExpectedVersionToDao() {
+		//Given
+		long id = 10;
+		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+				"Alexandro",null,null
+		);
+		Customer updated = new Customer(id, "Alexandro", "alex@gmail.com", 19, 4L);
+		when(customerDao.updateCustomer(any())).thenReturn(Optional.of(updated));
+
+		//When
+		Customer actual = underTest.updateCustomer(id, updateRequest, 3L);
+
+		//Then
+		ArgumentCaptor<Customer> customerArgumentCaptor = ArgumentCaptor.forClass(Customer.class);
+		verify(customerDao).updateCustomer(customerArgumentCaptor.capture());
+		assertThat(customerArgumentCaptor.getValue().getVersion()).isEqualTo(3L);
+		assertThat(actual.getVersion()).isEqualTo(4L);
+	}
+
+	@Test
+	void willThrowWhenCustomerWasModifiedSinceExpectedVersion() {
+		//Given
+		long id = 10;
+		CustomerUpdateRequest updateRequest = new CustomerUpdateRequest(
+				"Alexandro",null,null
+		);
+		when(customerDao.updateCustomer(any())).thenReturn(Optional.empty());
+		when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(4L));
+
+		//When
+		assertThatThrownBy(() -> underTest.updateCustomer(id, updateRequest, 3L))
+				.isInstanceOf(PreconditionFailedException.class)
+				.hasMessage("customer with id [%s] has been modified since it was read".formatted(id));
+	}
+
+	@Test
+	void getStatisticsUsesDefaultNumberOfDomains() {
+		//Given
+		CustomerStatistics statistics = new CustomerStatistics(0, List.of(), List.of(), null);
+		when(customerAggregates.statistics(CustomerService.DEFAULT_TOP_DOMAINS)).thenReturn(statistics);
+
+		//When
+		CustomerStatistics actual = underTest.getStatistics(null);
+
+		//Then
+		assertThat(actual).isSameAs(statistics);
+	}
+
+	@Test
+	void willThrowWhenStatisticsAreDisabled() {
+		//Given
+		underTest = new CustomerService(customerDao, Optional.empty());
+
+		//When
+		assertThatThrownBy(() -> underTest.getStatistics(5))
+				.isInstanceOf(ResourceNotFoundException.class)
+				.hasMessage("customer statistics are disabled");
+	}
+
+	@Test
+	void deleteCustomersReportsDeletedAndMissingIdsOnce() {
+		//Given
+		when(customerDao.deleteCustomersById(List.of(1L, 2L)))
+				.thenReturn(List.of(new Customer(1L, "Alex", "alex@gmail.com", 19)));
+
+		//When
+		List<CustomerBulkResult> actual = underTest.deleteCustomers(List.of(1L, 2L, 1L));
+
+		//Then
+		assertThat(actual).containsExactly(
+				new CustomerBulkResult(1L, CustomerBulkResult.Status.DELETED),
+				new CustomerBulkResult(2L, CustomerBulkResult.Status.NOT_FOUND)
+		);
+	}
+
+	@Test
+	void willThrowWhenDeletingByFilterWithoutCriteria() {
+		//Given
+		CustomerSearchRequest filter = new CustomerSearchRequest(" ", null, null, null, null, null, null);
+
+		//When
+		assertThatThrownBy(() -> underTest.deleteCustomers(filter))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("deleting by filter needs at least one of name, emailDomain, minAge or maxAge");
+
+		//Then
+		verify(customerDao, never()).deleteCustomers(any());
+	}
+
+	@Test
+	void updateCustomersReturnsOutcomesInRequestOrder() {
+		//Given
+		List<CustomerBulkUpdateRequest> requests = List.of(
+				new CustomerBulkUpdateRequest(1L, "Alex", null, null),
+				new CustomerBulkUpdateRequest(2L, null, null, 30)
+		);
+		when(customerDao.updateCustomers(any())).thenReturn(List.of(
+				new CustomerBulkResult(2L, CustomerBulkResult.Status.NOT_FOUND),
+				new CustomerBulkResult(1L, CustomerBulkResult.Status.UPDATED)
+		));
+
+		//When
+		List<CustomerBulkResult> actual = underTest.updateCustomers(requests);
+
+		//Then
+		assertThat(actual).containsExactly(
+				new CustomerBulkResult(1L, CustomerBulkResult.Status.UPDATED),
+				new CustomerBulkResult(2L, CustomerBulkResult.Status.NOT_FOUND)
+		);
+	}
+
+	@Test
+	void willThrowWhenBulkUpdateRepeatsAnEmail() {
+		//Given
+		List<CustomerBulkUpdateRequest> requests = List.of(
+				new CustomerBulkUpdateRequest(1L, null, "alex@gmail.com", null),
+				new CustomerBulkUpdateRequest(2L, null, "alex@gmail.com", null)
+		);
+
+		//When
+		assertThatThrownBy(() -> underTest.updateCustomers(requests))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("email [alex@gmail.com] appears more than once");
+
+		//Then
+		verify(customerDao, never()).updateCustomers(any());
+	}
+
+	@Test
+	void getCustomerVersion() {
+		//Given
+		long id = 10;
+		when(customerDao.selectCustomerVersion(id)).thenReturn(Optional.of(2L));
+
+		//When
+		Long actual = underTest.getCustomerVersion(id);
+
+		//Then
+		assertThat(actual).isEqualTo(2L);
+	}
+
+	@Test
+	void searchCustomers() {
+		//Given
+		CustomerSearchRequest request = new CustomerSearchRequest(
+				" ",
+				"@AmigosCode.com",
+				18,
+				30,
+				"-name",
+				20,
+				null
+		);
+		List<Customer> customers = List.of(new Customer(1L, "Ali", "ali@amigoscode.com", 22));
+		CustomerSearch search = new CustomerSearch(
+				null,
+				"amigoscode.com",
+				18,
+				30,
+				CustomerSearch.Sort.NAME,
+				true,
+				20,
+				CustomerService.DEFAULT_PAGE_SIZE
+		);
+		when(customerDao.searchCustomers(search)).thenReturn(customers);
+
+		//When
+		List<Customer> actual = underTest.searchCustomers(request);
+
+		//Then
+		assertThat(actual).isEqualTo(customers);
+	}
+
+	@Test
+	void willThrowWhenSearchSortIsUnknown() {
+		//Given
+		CustomerSearchRequest request = new CustomerSearchRequest(null, null, null, null, "email", null, null);
+
+		//When
+		assertThatThrownBy(() -> underTest.searchCustomers(request))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("sort must be one of id, name or age, prefixed with - for descending order");
+
+		//Then
+		verify(customerDao, never()).searchCustomers(any());
+	}
+
+	@Test
+	void willThrowWhenSearchOffsetIsBeyondCap() {
+		//Given
+		CustomerSearchRequest request = new CustomerSearchRequest(
+				null, null, null, null, null, CustomerService.MAX_SEARCH_OFFSET + 1, null);
+
+		//When
+		assertThatThrownBy(() -> underTest.searchCustomers(request))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("offset must be between 0 and %d".formatted(CustomerService.MAX_SEARCH_OFFSET));
+
+		//Then
+		verify(customerDao, never()).searchCustomers(any());
+	}
+
+	@Test
+	void willThrowWhenSearchAgeRangeIsInverted() {
+		//Given
+		CustomerSearchRequest request = new CustomerSearchRequest(null, null, 40, 30, null, null, null);
+
+		//When
+		assertThatThrownBy(() -> underTest.searchCustomers(request))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("minAge must not be greater than maxAge");
+
+		//Then
+		verify(customerDao, never()).searchCustomers(any());
+	}
+
+	@Test
+	void fuzzySearchCustomers() {
+		//Given
+		List<CustomerMatch> matches = List.of(
+				new CustomerMatch(new Customer(1L, "Jamila", "jamila@gmail.com", 19), 0.8)
+		);
+		when(customerDao.fuzzySearchCustomers("jamilla", CustomerService.DEFAULT_PAGE_SIZE)).thenReturn(matches);
+
+		//When
+		List<CustomerMatch> actual = underTest.fuzzySearchCustomers(" Jamilla ", null);
+
+		//Then
+		assertThat(actual).isEqualTo(matches);
+	}
+
+	@Test
+	void willThrowWhenFuzzySearchQueryIsBlank() {
+		//When
+		assertThatThrownBy(() -> underTest.fuzzySearchCustomers(" ", 10))
+				.isInstanceOf(RequestValidationException.class)
+				.hasMessage("query must not be blank");
+
+		//Then
+		verify(customerDao, never()).fuzzySearchCustomers(any(), anyInt());
+	}
+}
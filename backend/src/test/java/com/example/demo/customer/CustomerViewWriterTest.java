@@ -0,0 +1,28 @@
+package com.example.demo.customer;
+
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CustomerViewWriterTest {
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void writesTheSameJsonAsCustomer() throws Exception {
+		//Given
+		Customer customer = new Customer(7L, "Alex \"A\"", "alex@gmail.com", 19, 3L);
+		StringWriter actual = new StringWriter();
+
+		//When
+		try (JsonGenerator generator = objectMapper.createGenerator(actual)) {
+			CustomerViewWriter.write(generator, CustomerView.of(customer));
+		}
+
+		//Then
+		assertThat(objectMapper.readTree(actual.toString()))
+				.isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(customer)));
+	}
+}
@@ -0,0 +1,162 @@
+package com.example.demo.customer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailFilteringCustomerDaoTest {
+	@Mock
+	private CustomerDao delegate;
+	private MeterRegistry meterRegistry;
+	private CustomerEmailFilter emailFilter;
+	private EmailFilteringCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		emailFilter = new CustomerEmailFilter(
+				delegate, new SyncTaskExecutor(), meterRegistry, 1000, 0.01, Duration.ofMinutes(10));
+		underTest = new EmailFilteringCustomerDao(delegate, emailFilter);
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		emailFilter.close();
+	}
+
+	@Test
+	void absentEmailSkipsDelegateOnceWarm() {
+		//Given
+		warmUpWith(new Customer(1L, "Alex", "alex@gmail.com", 19));
+
+		//When
+		boolean actual = underTest.existsPersonWithEmail("jamila@gmail.com");
+
+		//Then
+		assertThat(actual).isFalse();
+		verify(delegate, never()).existsPersonWithEmail(any());
+		assertThat(meterRegistry.counter("customer.email.filter", "result", "absent").count()).isEqualTo(1);
+	}
+
+	@Test
+	void possiblyPresentEmailIsConfirmedByDelegate() {
+		//Given
+		warmUpWith(new Customer(1L, "Alex", "alex@gmail.com", 19));
+		when(delegate.existsPersonWithEmail("alex@gmail.com")).thenReturn(true);
+
+		//When
+		boolean actual = underTest.existsPersonWithEmail("alex@gmail.com");
+
+		//Then
+		assertThat(actual).isTrue();
+		assertThat(meterRegistry.counter("customer.email.filter", "result", "present").count()).isEqualTo(1);
+	}
+
+	@Test
+	void delegateIsAskedUntilWarm() {
+		//Given
+		when(delegate.existsPersonWithEmail("alex@gmail.com")).thenReturn(true);
+
+		//When
+		boolean actual = underTest.existsPersonWithEmail("alex@gmail.com");
+
+		//Then
+		assertThat(emailFilter.isWarm()).isFalse();
+		assertThat(actual).isTrue();
+	}
+
+	@Test
+	void insertedEmailIsNoLongerDefinitelyAbsent() {
+		//Given
+		warmUpWith();
+		Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+
+		//When
+		underTest.insertCustomer(customer);
+
+		//Then
+		assertThat(emailFilter.mightContain(customer.getEmail())).isTrue();
+		verify(delegate).insertCustomer(customer);
+	}
+
+	@Test
+	void returningWritesAreForwardedInOneCall() {
+		//Given
+		warmUpWith();
+		Customer update = new Customer(1L, null, "alex@gmail.com", null);
+		Customer customer = new Customer(2L, null, null, null);
+
+		//When
+		underTest.updateCustomerReturningChange(update);
+		underTest.deleteCustomerReturningRow(customer);
+
+		//Then
+		assertThat(emailFilter.mightContain("alex@gmail.com")).isTrue();
+		verify(delegate).updateCustomerReturningChange(update);
+		verify(delegate).deleteCustomerReturningRow(customer);
+		verify(delegate, never()).selectCustomerById(any());
+	}
+
+	@Test
+	void refreshPicksUpEmailsWrittenElsewhere() {
+		//Given
+		warmUpWith(new Customer(1L, "Alex", "alex@gmail.com", 19));
+		scanReturns(
+				new Customer(1L, "Alex", "alex@gmail.com", 19),
+				new Customer(2L, "Jamila", "jamila@gmail.com", 21)
+		);
+
+		//When
+		emailFilter.refresh();
+
+		//Then
+		assertThat(emailFilter.mightContain("jamila@gmail.com")).isTrue();
+	}
+
+	@Test
+	void emailAddedDuringRefreshIsKept() {
+		//Given
+		warmUpWith();
+		doAnswer(invocation -> {
+			underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+			return null;
+		}).when(delegate).forEachCustomer(any());
+
+		//When
+		emailFilter.refresh();
+
+		//Then
+		assertThat(emailFilter.mightContain("alex@gmail.com")).isTrue();
+	}
+
+	private void warmUpWith(Customer... customers) {
+		scanReturns(customers);
+		emailFilter.warmUpInBackground();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void scanReturns(Customer... customers) {
+		doAnswer(invocation -> {
+			Consumer<CustomerView> action = invocation.getArgument(0);
+			List.of(customers).forEach(customer -> action.accept(CustomerView.of(customer)));
+			return null;
+		}).when(delegate).forEachCustomer(any());
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredCustomerDaoTest {
+	@Mock
+	private CustomerDao delegate;
+	private SimpleMeterRegistry meterRegistry;
+	private MeteredCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		underTest = new MeteredCustomerDao(delegate, "jdbc", meterRegistry);
+	}
+
+	@Test
+	void recordsLatencyAndRowsOnSuccess() {
+		//Given
+		List<Customer> customers = List.of(
+				new Customer(1L, "Alex", "alex@gmail.com", 19),
+				new Customer(2L, "Jamila", "jamila@gmail.com", 21)
+		);
+		when(delegate.selectCustomers(null, 2)).thenReturn(customers);
+
+		//When
+		List<Customer> actual = underTest.selectCustomers(null, 2);
+
+		//Then
+		assertThat(actual).isEqualTo(customers);
+		assertThat(meterRegistry.get("customer.dao")
+				.tags("method", "selectCustomers", "backend", "jdbc", "outcome", "success")
+				.timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("customer.dao.rows")
+				.tags("method", "selectCustomers")
+				.summary().totalAmount()).isEqualTo(2);
+	}
+
+	@Test
+	void countsRowsAffectedByUpdate() {
+		//Given
+		Customer update = new Customer();
+		update.setId(1L);
+		update.setAge(20);
+		when(delegate.updateCustomer(update)).thenReturn(Optional.empty());
+
+		//When
+		underTest.updateCustomer(update);
+
+		//Then
+		assertThat(meterRegistry.get("customer.dao.rows")
+				.tags("method", "updateCustomer")
+				.summary().totalAmount()).isZero();
+	}
+
+	@Test
+	void recordsErrorsByExceptionType() {
+		//Given
+		Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+		when(delegate.insertCustomer(customer)).thenThrow(new DuplicateKeyException("duplicate"));
+
+		//When
+		//Then
+		assertThatThrownBy(() -> underTest.insertCustomer(customer))
+				.isInstanceOf(DuplicateKeyException.class);
+		assertThat(meterRegistry.get("customer.dao")
+				.tags("method", "insertCustomer", "outcome", "error")
+				.timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("customer.dao.errors")
+				.tags("method", "insertCustomer", "exception", "DuplicateKeyException")
+				.counter().count()).isEqualTo(1);
+	}
+}
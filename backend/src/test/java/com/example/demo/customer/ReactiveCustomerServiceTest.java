@@ -0,0 +1,142 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import com.example.demo.exception.DuplicateResourceException;
+import com.example.demo.exception.RequestValidationException;
+import com.example.demo.exception.ResourceNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCustomerServiceTest {
+	@Mock
+	private ReactiveCustomerDao customerDao;
+	private ReactiveCustomerService underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new ReactiveCustomerService(customerDao);
+	}
+
+	@Test
+	void getCustomersReturnsCursorWhenMoreRowsExist() {
+		//Given
+		Customer alex = new Customer(1L, "Alex", "alex@gmail.com", 19);
+		Customer jamila = new Customer(2L, "Jamila", "jamila@gmail.com", 21);
+		when(customerDao.selectCustomers(null, 2)).thenReturn(Flux.just(alex, jamila));
+
+		//When
+		//Then
+		StepVerifier.create(underTest.getCustomers(null, 1))
+				.expectNext(new CustomerPage(List.of(alex), 1L))
+				.verifyComplete();
+	}
+
+	@Test
+	void getCustomersRejectsLimitOutOfRange() {
+		//When
+		//Then
+		StepVerifier.create(underTest.getCustomers(null, 0))
+				.expectError(RequestValidationException.class)
+				.verify();
+		verifyNoInteractions(customerDao);
+	}
+
+	@Test
+	void getCustomerFailsWhenMissing() {
+		//Given
+		when(customerDao.selectCustomerById(1L)).thenReturn(Mono.empty());
+
+		//When
+		//Then
+		StepVerifier.create(underTest.getCustomer(1L))
+				.expectErrorMessage("customer with id [1] not found")
+				.verify();
+	}
+
+	@Test
+	void addCustomerFailsWhenEmailTaken() {
+		//Given
+		CustomerRegistrationRequest request = new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19);
+		when(customerDao.insertCustomer(any())).thenReturn(Mono.empty());
+
+		//When
+		//Then
+		StepVerifier.create(underTest.addCustomer(request))
+				.expectError(DuplicateResourceException.class)
+				.verify();
+	}
+
+	@Test
+	void addCustomersReportsDuplicates() {
+		//Given
+		List<CustomerRegistrationRequest> requests = List.of(
+				new CustomerRegistrationRequest("Alex", "alex@gmail.com", 19),
+				new CustomerRegistrationRequest("Jamila", "jamila@gmail.com", 21)
+		);
+		when(customerDao.insertCustomers(any()))
+				.thenReturn(Flux.just(new Customer(1L, "Alex", "alex@gmail.com", 19)));
+
+		//When
+		//Then
+		StepVerifier.create(underTest.addCustomers(requests))
+				.expectNext(List.of(
+						new CustomerRegistrationResult("alex@gmail.com", 1L, CustomerRegistrationResult.Status.CREATED),
+						new CustomerRegistrationResult("jamila@gmail.com", null, CustomerRegistrationResult.Status.DUPLICATE)
+				))
+				.verifyComplete();
+	}
+
+	@Test
+	void deleteCustomerByIdFailsWhenNothingDeleted() {
+		//Given
+		when(customerDao.deleteCustomerById(1L)).thenReturn(Mono.just(false));
+
+		//When
+		//Then
+		StepVerifier.create(underTest.deleteCustomerById(1L))
+				.expectError(ResourceNotFoundException.class)
+				.verify();
+	}
+
+	@Test
+	void updateCustomerMapsDuplicateEmail() {
+		//Given
+		when(customerDao.updateCustomer(any())).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+
+		//When
+		//Then
+		StepVerifier.create(underTest.updateCustomer(1L, new CustomerUpdateRequest(null, "alex@gmail.com", null)))
+				.expectError(DuplicateResourceException.class)
+				.verify();
+	}
+
+	@Test
+	void updateCustomerWithoutChangesDistinguishesMissingCustomer() {
+		//Given
+		CustomerUpdateRequest request = new CustomerUpdateRequest(null, null, 20);
+		when(customerDao.updateCustomer(any())).thenReturn(Mono.empty());
+		when(customerDao.existsPersonWithId(1L)).thenReturn(Mono.just(true));
+		when(customerDao.existsPersonWithId(2L)).thenReturn(Mono.just(false));
+
+		//When
+		//Then
+		StepVerifier.create(underTest.updateCustomer(1L, request))
+				.expectErrorMessage("no data changes found")
+				.verify();
+		StepVerifier.create(underTest.updateCustomer(2L, request))
+				.expectError(ResourceNotFoundException.class)
+				.verify();
+	}
+}
@@ -0,0 +1,143 @@
+package com.example.demo.customer;
+
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TieredCustomerDaoTest {
+	@Mock
+	private CustomerDao systemOfRecord;
+	private Cache<Long, Customer> hotTier;
+	private TieredCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		underTest = new TieredCustomerDao(systemOfRecord, 100);
+		hotTier = underTest.getHotTier();
+	}
+
+	@Test
+	void selectCustomerByIdIsServedFromHotTierAfterFirstRead() {
+		//Given
+		long id = 1;
+		Customer customer = new Customer(id, "Alex", "alex@gmail.com", 19);
+		when(systemOfRecord.selectCustomerById(id)).thenReturn(Optional.of(customer));
+
+		//When
+		underTest.selectCustomerById(id);
+		Optional<Customer> actual = underTest.selectCustomerById(id);
+
+		//Then
+		assertThat(actual).contains(customer);
+		verify(systemOfRecord, times(1)).selectCustomerById(id);
+	}
+
+	@Test
+	void insertCustomerWritesThroughToHotTier() {
+		//Given
+		Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+		when(systemOfRecord.insertCustomer(customer)).thenReturn(Optional.of(7L));
+
+		//When
+		underTest.insertCustomer(customer);
+
+		//Then
+		assertThat(underTest.selectCustomerById(7L)).contains(new Customer(7L, "Alex", "alex@gmail.com", 19));
+		verify(systemOfRecord, never()).selectCustomerById(7L);
+	}
+
+	@Test
+	void updateCustomerReplacesHotRow() {
+		//Given
+		long id = 1;
+		hotTier.put(id, new Customer(id, "Alex", "alex@gmail.com", 19));
+		Customer update = new Customer(id, null, "alexandro@gmail.com", null);
+		Customer updated = new Customer(id, "Alex", "alexandro@gmail.com", 19);
+		when(systemOfRecord.updateCustomer(update)).thenReturn(Optional.of(updated));
+
+		//When
+		underTest.updateCustomer(update);
+
+		//Then
+		assertThat(hotTier.getIfPresent(id)).isEqualTo(updated);
+		assertThat(hotTier.getIfPresent(id).getEmail()).isEqualTo("alexandro@gmail.com");
+	}
+
+	@Test
+	void failedUpdateEvictsHotRow() {
+		//Given
+		long id = 1;
+		hotTier.put(id, new Customer(id, "Alex", "alex@gmail.com", 19));
+		Customer update = new Customer(id, null, "jamila@gmail.com", null);
+		when(systemOfRecord.updateCustomer(update)).thenThrow(new DuplicateKeyException("duplicate"));
+
+		//When
+		//Then
+		assertThatThrownBy(() -> underTest.updateCustomer(update))
+				.isInstanceOf(DuplicateKeyException.class);
+		assertThat(hotTier.getIfPresent(id)).isNull();
+	}
+
+	@Test
+	void deleteCustomerByIdEvictsHotRow() {
+		//Given
+		long id = 1;
+		hotTier.put(id, new Customer(id, "Alex", "alex@gmail.com", 19));
+
+		//When
+		underTest.deleteCustomerById(id);
+
+		//Then
+		verify(systemOfRecord).deleteCustomerById(id);
+		assertThat(hotTier.getIfPresent(id)).isNull();
+	}
+
+	@Test
+	void rangeReadsGoToSystemOfRecord() {
+		//Given
+		hotTier.put(1L, new Customer(1L, "Alex", "alex@gmail.com", 19));
+		List<Customer> customers = List.of(
+				new Customer(1L, "Alex", "alex@gmail.com", 19),
+				new Customer(2L, "Jamila", "jamila@gmail.com", 21)
+		);
+		when(systemOfRecord.selectCustomers(null, 10)).thenReturn(customers);
+
+		//When
+		List<Customer> actual = underTest.selectCustomers(null, 10);
+
+		//Then
+		assertThat(actual).isEqualTo(customers);
+	}
+
+	@Test
+	void hotTierIsBoundedToMaximumSize() {
+		//Given
+		for (long id = 1; id <= 1000; id++) {
+			when(systemOfRecord.selectCustomerById(id))
+					.thenReturn(Optional.of(new Customer(id, "Alex", "alex" + id + "@gmail.com", 19)));
+		}
+
+		//When
+		for (long id = 1; id <= 1000; id++) {
+			underTest.selectCustomerById(id);
+		}
+		hotTier.cleanUp();
+
+		//Then
+		assertThat(hotTier.estimatedSize()).isLessThanOrEqualTo(100);
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.demo.customer;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+	@Test
+	void trigramsArePaddedPerWordLikePgTrgm() {
+		//When
+		long[] actual = TrigramIndex.trigrams("Ab-c");
+
+		//Then
+		// show_trgm('Ab-c') = {"  a","  c"," ab"," c ","ab "}
+		assertThat(actual).containsExactlyInAnyOrder(
+				trigram("  a"), trigram(" ab"), trigram("ab "), trigram("  c"), trigram(" c ")
+		);
+	}
+
+	@Test
+	void countSharedKeepsIdsReachingMinimum() {
+		//Given
+		TrigramIndex underTest = new TrigramIndex();
+		underTest.add(1, "jamila");
+		underTest.add(2, "james");
+		long[] query = TrigramIndex.trigrams("jamilla");
+
+		//When
+		Map<Long, Integer> actual = underTest.countShared(query, 5);
+
+		//Then
+		assertThat(actual).containsOnlyKeys(1L);
+	}
+
+	@Test
+	void removedTextNoLongerMatches() {
+		//Given
+		TrigramIndex underTest = new TrigramIndex();
+		underTest.add(1, "jamila");
+
+		//When
+		underTest.remove(1, "jamila");
+
+		//Then
+		assertThat(underTest.countShared(TrigramIndex.trigrams("jamila"), 1)).isEmpty();
+	}
+
+	@Test
+	void idsAddedOutOfOrderOrTwiceAreCountedOnce() {
+		//Given
+		TrigramIndex underTest = new TrigramIndex();
+		underTest.add(3, "jamila");
+		underTest.add(1, "jamila");
+		underTest.add(2, "jamila");
+		underTest.add(1, "jamila");
+
+		//When
+		underTest.remove(2, "jamila");
+
+		//Then
+		long[] query = TrigramIndex.trigrams("jamila");
+		assertThat(underTest.countShared(query, 1))
+				.containsOnlyKeys(1L, 3L)
+				.containsEntry(1L, query.length);
+	}
+
+	private static long trigram(String text) {
+		return (long) text.charAt(0) << 32 | (long) text.charAt(1) << 16 | text.charAt(2);
+	}
+}
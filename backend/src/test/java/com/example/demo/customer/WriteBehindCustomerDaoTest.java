@@ -0,0 +1,269 @@
+package com.example.demo.customer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindCustomerDaoTest {
+	@Mock
+	private CustomerJDBCDataAccessService database;
+	@TempDir
+	private Path journalDirectory;
+	private SimpleMeterRegistry meterRegistry;
+	private WriteBehindCustomerDao underTest;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		underTest = newWriteBehindCustomerDao();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		underTest.close();
+	}
+
+	@Test
+	void insertIsAcknowledgedBeforeItIsFlushed() {
+		//Given
+		givenIds();
+		Customer customer = new Customer("Alex", "alex@gmail.com", 19);
+
+		//When
+		Optional<Long> id = underTest.insertCustomer(customer);
+
+		//Then
+		assertThat(id).contains(1L);
+		assertThat(underTest.selectCustomerById(1L)).contains(new Customer(1L, "Alex", "alex@gmail.com", 19));
+		assertThat(meterRegistry.get("customer.write-behind.queue.depth").gauge().value()).isEqualTo(1);
+		verify(database, never()).insertCustomersWithIds(anyList());
+	}
+
+	@Test
+	void insertRejectsEmailTakenByQueuedOrStoredCustomer() {
+		//Given
+		givenIds();
+		when(database.existsPersonWithEmail("alex@gmail.com")).thenReturn(false);
+		when(database.existsPersonWithEmail("jamila@gmail.com")).thenReturn(true);
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+		//When
+		Optional<Long> queued = underTest.insertCustomer(new Customer("Alexandro", "alex@gmail.com", 20));
+		Optional<Long> stored = underTest.insertCustomer(new Customer("Jamila", "jamila@gmail.com", 21));
+
+		//Then
+		assertThat(queued).isEmpty();
+		assertThat(stored).isEmpty();
+	}
+
+	@Test
+	void updatesToQueuedInsertAreFlushedAsOneRow() {
+		//Given
+		givenIds();
+		when(database.insertCustomersWithIds(anyList())).thenReturn(List.of(1L));
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+		underTest.updateCustomer(new Customer(1L, "Alexandro", null, null));
+		underTest.updateCustomer(new Customer(1L, null, null, 20));
+
+		//When
+		underTest.flush();
+
+		//Then
+		verify(database).insertCustomersWithIds(List.of(new Customer(1L, "Alexandro", "alex@gmail.com", 20)));
+		verify(database, never()).applyUpdates(anyList());
+		assertThat(meterRegistry.get("customer.write-behind.queue.depth").gauge().value()).isZero();
+	}
+
+	@Test
+	void updateToTakenEmailFails() {
+		//Given
+		Customer stored = new Customer(1L, "Alex", "alex@gmail.com", 19, Customer.INITIAL_VERSION);
+		when(database.selectCustomerById(1L)).thenReturn(Optional.of(stored));
+		when(database.existsPersonWithEmail("jamila@gmail.com")).thenReturn(true);
+
+		//When
+		//Then
+		assertThatThrownBy(() -> underTest.updateCustomer(new Customer(1L, null, "jamila@gmail.com", null)))
+				.isInstanceOf(DuplicateKeyException.class);
+	}
+
+	@Test
+	void queuedUpdatesCarryTheNextVersion() throws Exception {
+		//Given
+		Customer stored = new Customer(1L, "Alex", "alex@gmail.com", 19, 3L);
+		when(database.selectCustomerById(1L)).thenReturn(Optional.of(stored));
+
+		//When
+		Optional<Customer> updated = underTest.updateCustomer(new Customer(1L, "Alexandro", null, null, 3L));
+		Optional<Customer> stale = underTest.updateCustomer(new Customer(1L, null, null, 20, 3L));
+		WriteBehindCustomerDao restarted = newWriteBehindCustomerDao();
+		restarted.flush();
+
+		//Then
+		assertThat(updated).hasValueSatisfying(c -> assertThat(c.getVersion()).isEqualTo(4L));
+		assertThat(stale).isEmpty();
+		assertThat(underTest.selectCustomerVersion(1L)).contains(4L);
+		verify(database).applyUpdates(argThat(updates -> updates.size() == 1
+				&& updates.get(0).getName().equals("Alexandro")
+				&& updates.get(0).getVersion() == 4L));
+		restarted.close();
+	}
+
+	@Test
+	void returningWritesReportTheRowTheyReplaced() {
+		//Given
+		when(database.selectCustomerById(1L))
+				.thenAnswer(invocation -> Optional.of(new Customer(1L, "Alex", "alex@gmail.com", 19, 3L)));
+
+		//When
+		Optional<CustomerChange> updated = underTest.updateCustomerReturningChange(new Customer(1L, null, null, 20));
+		Optional<Customer> deleted = underTest.deleteCustomerReturningRow(new Customer(1L, null, null, null));
+
+		//Then
+		assertThat(updated).contains(new CustomerChange(
+				new Customer(1L, "Alex", "alex@gmail.com", 19, 3L),
+				new Customer(1L, "Alex", "alex@gmail.com", 20, 4L)
+		));
+		assertThat(deleted).contains(new Customer(1L, "Alex", "alex@gmail.com", 20, 4L));
+		assertThat(underTest.selectCustomerById(1L)).isEmpty();
+		verify(database, never()).deleteCustomerById(any());
+	}
+
+	@Test
+	void deletingQueuedInsertCancelsIt() {
+		//Given
+		givenIds();
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+		//When
+		underTest.deleteCustomerById(1L);
+		underTest.flush();
+
+		//Then
+		assertThat(underTest.existsPersonWithEmail("alex@gmail.com")).isFalse();
+		verify(database, never()).insertCustomersWithIds(anyList());
+		verify(database, never()).deleteCustomersById(anyList());
+	}
+
+	@Test
+	void acknowledgedWritesSurviveRestart() throws Exception {
+		//Given
+		givenIds();
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+		//When
+		WriteBehindCustomerDao restarted = newWriteBehindCustomerDao();
+		Optional<Long> replayedVersion = restarted.selectCustomerVersion(1L);
+		when(database.insertCustomersWithIds(anyList())).thenReturn(List.of(1L));
+		restarted.flush();
+
+		//Then
+		assertThat(replayedVersion).contains(Customer.INITIAL_VERSION);
+		verify(database).insertCustomersWithIds(List.of(new Customer(1L, "Alex", "alex@gmail.com", 19)));
+		restarted.close();
+	}
+
+	@Test
+	void failedFlushKeepsWritesQueued() {
+		//Given
+		givenIds();
+		when(database.insertCustomersWithIds(anyList()))
+				.thenThrow(new DataAccessResourceFailureException("database down"));
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+		//When
+		//Then
+		assertThatThrownBy(() -> underTest.flush()).isInstanceOf(DataAccessResourceFailureException.class);
+		assertThat(underTest.selectCustomerById(1L)).isPresent();
+		assertThat(meterRegistry.get("customer.write-behind.queue.depth").gauge().value()).isEqualTo(1);
+		assertThat(meterRegistry.get("customer.write-behind.flush.failures").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void refusedWriteIsDeadLetteredWithoutHoldingUpTheRest() throws Exception {
+		//Given
+		givenIds();
+		when(database.insertCustomersWithIds(anyList())).thenAnswer(invocation -> {
+			List<Customer> customers = invocation.getArgument(0);
+			if (customers.stream().anyMatch(customer -> customer.getId() == 2L)) {
+				throw new DataIntegrityViolationException("customer_email_unique");
+			}
+			return customers.stream().map(Customer::getId).toList();
+		});
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+		underTest.insertCustomer(new Customer("Jamila", "jamila@gmail.com", 21));
+
+		//When
+		underTest.flush();
+
+		//Then
+		verify(database).insertCustomersWithIds(List.of(new Customer(1L, "Alex", "alex@gmail.com", 19)));
+		assertThat(meterRegistry.get("customer.write-behind.queue.depth").gauge().value()).isZero();
+		assertThat(meterRegistry.get("customer.write-behind.dead-lettered").counter().count()).isEqualTo(1);
+		assertThat(underTest.existsPersonWithEmail("jamila@gmail.com")).isFalse();
+		try (CustomerWriteJournal deadLetters = new CustomerWriteJournal(
+				journalDirectory.resolve(WriteBehindCustomerDao.DEAD_LETTER_DIRECTORY))) {
+			assertThat(deadLetters.open()).extracting(entry -> entry.customer().getId()).containsExactly(2L);
+		}
+	}
+
+	@Test
+	void writeFailingTransientlyIsDeadLetteredAfterMaxAttempts() {
+		//Given
+		givenIds();
+		when(database.insertCustomersWithIds(anyList())).thenThrow(new QueryTimeoutException("statement timeout"));
+		underTest.insertCustomer(new Customer("Alex", "alex@gmail.com", 19));
+
+		//When
+		//Then
+		assertThatThrownBy(() -> underTest.flush()).isInstanceOf(QueryTimeoutException.class);
+		assertThatThrownBy(() -> underTest.flush()).isInstanceOf(QueryTimeoutException.class);
+		underTest.flush();
+		assertThat(meterRegistry.get("customer.write-behind.queue.depth").gauge().value()).isZero();
+		assertThat(meterRegistry.get("customer.write-behind.dead-lettered").counter().count()).isEqualTo(1);
+	}
+
+	private void givenIds() {
+		when(database.nextCustomerIds(anyInt()))
+				.thenReturn(LongStream.rangeClosed(1, 100).boxed().toList());
+	}
+
+	private WriteBehindCustomerDao newWriteBehindCustomerDao() {
+		return new WriteBehindCustomerDao(
+				database,
+				journalDirectory,
+				TransactionOperations.withoutTransaction(),
+				Duration.ofHours(1),
+				1000,
+				3,
+				meterRegistry
+		);
+	}
+}
@@ -1,5 +1,6 @@
 package com.example.demo.journey;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
@@ -7,11 +8,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import com.example.demo.BinaryFormatConfig;
 import com.example.demo.customer.Customer;
+import com.example.demo.customer.CustomerPage;
 import com.example.demo.customer.CustomerRegistrationRequest;
+import com.example.demo.customer.CustomerRegistrationResult;
 import com.example.demo.customer.CustomerUpdateRequest;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.github.javafaker.Faker;
 import com.github.javafaker.Name;
 
@@ -51,16 +60,7 @@ public class CustomerIT {
 				.expectStatus()
 				.isOk();
 		//get all customers
-		List<Customer> allCustomers = webTestClient.get()
-				.uri(CUSTOMER_URI)
-				.accept(MediaType.APPLICATION_JSON)
-				.exchange()
-				.expectStatus()
-				.isOk()
-				.expectBodyList(new ParameterizedTypeReference<Customer>() {
-				})
-				.returnResult()
-				.getResponseBody();
+		List<Customer> allCustomers = getAllCustomers();
 
 		//make sure that customer is present
 		Customer expectedCustomer = new Customer(
@@ -112,16 +112,7 @@ public class CustomerIT {
 				.expectStatus()
 				.isOk();
 		//get all customers
-		List<Customer> allCustomers = webTestClient.get()
-				.uri(CUSTOMER_URI)
-				.accept(MediaType.APPLICATION_JSON)
-				.exchange()
-				.expectStatus()
-				.isOk()
-				.expectBodyList(new ParameterizedTypeReference<Customer>() {
-				})
-				.returnResult()
-				.getResponseBody();
+		List<Customer> allCustomers = getAllCustomers();
 
 		//make sure that customer is present
 
@@ -172,16 +163,7 @@ public class CustomerIT {
 				.expectStatus()
 				.isOk();
 		//get all customers
-		List<Customer> allCustomers = webTestClient.get()
-				.uri(CUSTOMER_URI)
-				.accept(MediaType.APPLICATION_JSON)
-				.exchange()
-				.expectStatus()
-				.isOk()
-				.expectBodyList(new ParameterizedTypeReference<Customer>() {
-				})
-				.returnResult()
-				.getResponseBody();
+		List<Customer> allCustomers = getAllCustomers();
 
 		long id = allCustomers.stream()
 				.filter(customer -> customer.getEmail().equals(email))
@@ -221,4 +203,270 @@ public class CustomerIT {
 
 		assertThat(updateCustomer).isEqualTo(expected);
 	}
+
+	@Test
+	void canRevalidateAndConditionallyUpdateCustomer() {
+		//register a customer
+		String email = "etag-" + UUID.randomUUID() + "@amigoscode.com";
+		Long id = webTestClient.post()
+				.uri(CUSTOMER_URI)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(new CustomerRegistrationRequest("Etag", email, 30))
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody(CustomerRegistrationResult.class)
+				.returnResult()
+				.getResponseBody()
+				.id();
+
+		//get customer by id carries an ETag
+		String eTag = webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.exists(HttpHeaders.ETAG)
+				.returnResult(Customer.class)
+				.getResponseHeaders()
+				.getETag();
+
+		//revalidating with the ETag is answered without a body
+		webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus()
+				.isNotModified()
+				.expectBody()
+				.isEmpty();
+
+		//an update at the current version succeeds and changes the ETag
+		String updatedETag = webTestClient.put()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, eTag)
+				.bodyValue(new CustomerUpdateRequest("Etag Updated", null, null))
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody(Customer.class)
+				.value(customer -> assertThat(customer.getName()).isEqualTo("Etag Updated"))
+				.returnResult()
+				.getResponseHeaders()
+				.getETag();
+		assertThat(updatedETag).isNotNull().isNotEqualTo(eTag);
+
+		//the old ETag is stale now, so the update is refused and nothing changes
+		webTestClient.put()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, eTag)
+				.bodyValue(new CustomerUpdateRequest("Etag Stale", null, null))
+				.exchange()
+				.expectStatus()
+				.isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+		//so is a weak tag, even for the current version
+		webTestClient.put()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "W/" + updatedETag)
+				.bodyValue(new CustomerUpdateRequest("Etag Weak", null, null))
+				.exchange()
+				.expectStatus()
+				.isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+		//* matches whatever version is current
+		webTestClient.put()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "*")
+				.bodyValue(new CustomerUpdateRequest(null, null, 31))
+				.exchange()
+				.expectStatus()
+				.isOk();
+
+		webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody(Customer.class)
+				.isEqualTo(new Customer(id, "Etag Updated", email, 31));
+	}
+
+	@Test
+	void canRevalidateCustomerPage() {
+		String eTag = webTestClient.get()
+				.uri(CUSTOMER_URI + "?limit=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.returnResult(CustomerPage.class)
+				.getResponseHeaders()
+				.getETag();
+		assertThat(eTag).isNotNull();
+
+		webTestClient.get()
+				.uri(CUSTOMER_URI + "?limit=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus()
+				.isNotModified();
+	}
+
+	@Test
+	void eachFormatHasItsOwnETag() {
+		//register a customer
+		Long id = webTestClient.post()
+				.uri(CUSTOMER_URI)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(new CustomerRegistrationRequest("Formats", "formats-" + UUID.randomUUID() + "@amigoscode.com", 30))
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody(CustomerRegistrationResult.class)
+				.returnResult()
+				.getResponseBody()
+				.id();
+
+		//the JSON and CBOR representations carry different tags and vary by Accept
+		String jsonETag = webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.returnResult(byte[].class)
+				.getResponseHeaders()
+				.getETag();
+		String cborETag = webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_CBOR)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.returnResult(byte[].class)
+				.getResponseHeaders()
+				.getETag();
+		assertThat(cborETag).isNotNull().isNotEqualTo(jsonETag);
+
+		//a cached JSON body does not revalidate a CBOR request
+		webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_CBOR)
+				.header(HttpHeaders.IF_NONE_MATCH, jsonETag)
+				.exchange()
+				.expectStatus()
+				.isOk();
+
+		//the CBOR tag revalidates CBOR, and the 304 still varies by Accept
+		webTestClient.get()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_CBOR)
+				.header(HttpHeaders.IF_NONE_MATCH, cborETag)
+				.exchange()
+				.expectStatus()
+				.isNotModified()
+				.expectHeader()
+				.valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+		//either tag names the version an update expects
+		webTestClient.put()
+				.uri(CUSTOMER_URI + "/{id}", id)
+				.accept(MediaType.APPLICATION_JSON)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, cborETag)
+				.bodyValue(new CustomerUpdateRequest(null, null, 31))
+				.exchange()
+				.expectStatus()
+				.isOk();
+	}
+
+	@Test
+	void canExchangeCustomersAsSmileAndCbor() throws Exception {
+		//register with a Smile body
+		SmileMapper smileMapper = new SmileMapper();
+		CBORMapper cborMapper = new CBORMapper();
+		String email = "binary-" + UUID.randomUUID() + "@amigoscode.com";
+		webTestClient.post()
+				.uri(CUSTOMER_URI)
+				.contentType(MediaType.parseMediaType(BinaryFormatConfig.APPLICATION_SMILE_VALUE))
+				.bodyValue(smileMapper.writeValueAsBytes(new CustomerRegistrationRequest("Binary", email, 40)))
+				.exchange()
+				.expectStatus()
+				.isOk();
+
+		//read the first page as CBOR
+		byte[] cbor = webTestClient.get()
+				.uri(CUSTOMER_URI + "?limit=1000")
+				.accept(MediaType.APPLICATION_CBOR)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.contentType(MediaType.APPLICATION_CBOR)
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+		assertThat(cborMapper.readValue(cbor, CustomerPage.class).customers()).isNotEmpty();
+
+		//export as a Smile sequence; the export is the whole table, so lift the buffer limit
+		byte[] smile = webTestClient.mutate()
+				.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+				.build()
+				.get()
+				.uri(CUSTOMER_URI + "/export")
+				.accept(MediaType.parseMediaType(BinaryFormatConfig.APPLICATION_SMILE_VALUE))
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody(byte[].class)
+				.returnResult()
+				.getResponseBody();
+		List<Customer> exported = new ArrayList<>();
+		try (MappingIterator<Customer> customers = smileMapper.readerFor(Customer.class).readValues(smile)) {
+			customers.forEachRemaining(exported::add);
+		}
+		assertThat(exported).anySatisfy(customer -> {
+			assertThat(customer.getEmail()).isEqualTo(email);
+			assertThat(customer.getAge()).isEqualTo(40);
+		});
+	}
+
+	private List<Customer> getAllCustomers() {
+		List<Customer> allCustomers = new ArrayList<>();
+		Long cursor = null;
+		do {
+			CustomerPage page = webTestClient.get()
+					.uri(CUSTOMER_URI + "?limit=1000" + (cursor == null ? "" : "&after=" + cursor))
+					.accept(MediaType.APPLICATION_JSON)
+					.exchange()
+					.expectStatus()
+					.isOk()
+					.expectBody(CustomerPage.class)
+					.returnResult()
+					.getResponseBody();
+			allCustomers.addAll(page.customers());
+			cursor = page.nextCursor();
+		} while (cursor != null);
+		return allCustomers;
+	}
 }